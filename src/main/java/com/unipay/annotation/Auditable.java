@@ -7,4 +7,22 @@ import java.lang.annotation.*;
 @Documented
 public @interface Auditable {
     String action() default "";
-}
\ No newline at end of file
+
+    /**
+     * Where the subject of the event comes from when the call is not authenticated.
+     * An authenticated principal is always used when there is one.
+     */
+    Subject subject() default Subject.PRINCIPAL;
+
+    enum Subject {
+        /** Only the authenticated principal; anonymous calls are recorded without a subject. */
+        PRINCIPAL,
+        /** The first argument: an email address, or a command exposing {@code getEmail()}. */
+        EMAIL_ARGUMENT,
+        /**
+         * The method verifies a token it was given and names its subject and user ID through
+         * {@code SecurityAuditContext.attribute}; calls rejected before that are recorded without a subject.
+         */
+        VERIFIED_TOKEN
+    }
+}
@@ -1,39 +1,205 @@
 package com.unipay.aspect;
 
 import com.unipay.annotation.Auditable;
+import com.unipay.exception.AdmissionRejectedException;
+import com.unipay.exception.BusinessException;
+import com.unipay.exception.ExceptionPayloadFactory;
+import com.unipay.payload.UserDetailsImpl;
+import com.unipay.service.audit_log.AuditLogWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Records every call to an {@link Auditable} method as a {@link SecurityAuditEvent}.
+ *
+ * <p>Events are encoded by {@link SecurityAuditEncoder} and handed to the {@link AuditLogWriter} without
+ * waiting, so auditing never holds up the audited call; when the writer's buffer is full the event is dropped
+ * and counted in {@code audit.log.dropped}. The compliance-critical changes behind these actions are also
+ * audited synchronously by the services themselves.
+ *
+ * <p>The subject is the authenticated principal. Calls made before authentication take it as declared by
+ * {@link Auditable#subject()}: registration, login and password reset from the email they act on, MFA
+ * verification and token refresh from the token they present, named through {@link SecurityAuditContext}
+ * by the method once it has verified it.
+ *
+ * <p>Calls turned away before any work, by the login throttle, the password-hashing admission limit or an
+ * invalid or exhausted MFA challenge, are not written to the audit log: they are cheap to make in bulk and
+ * would otherwise turn a rejected flood into database writes. They are only counted, under the
+ * {@code REJECTED} outcome.
+ *
+ * <p>The same measurement feeds the {@code security.action} timer, tagged with {@code action} and
+ * {@code outcome} and published with a percentile histogram. The aspect runs outside the transaction of the
+ * audited method, so its latency includes the commit and failed events survive a rollback.
+ */
 @Slf4j
 @Aspect
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class SecurityAuditAspect {
 
-    @AfterReturning(
-            pointcut = "@annotation(auditable)",
-            returning = "result"
-    )
-    public void auditSuccess(JoinPoint joinPoint, Auditable auditable, Object result) {
-        log.info("✅ SECURITY SUCCESS: Action={} Method={} Result={}",
-                auditable.action(),
-                joinPoint.getSignature().toShortString(),
-                result
-        );
+    private static final String REJECTED = "REJECTED";
+
+    private final AuditLogWriter auditLogWriter;
+    private final MeterRegistry meterRegistry;
+    private final SecurityAuditEncoder encoder = new SecurityAuditEncoder();
+    private final Map<Method, AuditedMethod> auditedMethods = new ConcurrentHashMap<>();
+
+    public SecurityAuditAspect(AuditLogWriter auditLogWriter, MeterRegistry meterRegistry) {
+        this.auditLogWriter = auditLogWriter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(auditable)")
+    public Object audit(ProceedingJoinPoint joinPoint, Auditable auditable) throws Throwable {
+        SecurityAuditContext.Attribution attribution = auditable.subject() == Auditable.Subject.VERIFIED_TOKEN
+                ? SecurityAuditContext.open()
+                : null;
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            long latencyNanos = System.nanoTime() - start;
+            if (attribution != null) {
+                SecurityAuditContext.close(attribution);
+            }
+            record(joinPoint, auditable, attribution, failure, latencyNanos);
+        }
+    }
+
+    private void record(ProceedingJoinPoint joinPoint, Auditable auditable,
+                        SecurityAuditContext.Attribution attribution, Throwable failure, long latencyNanos) {
+        try {
+            AuditedMethod audited = auditedMethods.computeIfAbsent(
+                    ((MethodSignature) joinPoint.getSignature()).getMethod(),
+                    method -> describe(method, auditable));
+            if (rejectedBeforeAnyWork(failure)) {
+                audited.rejections().record(latencyNanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+            SecurityAuditEvent.Outcome outcome = failure == null
+                    ? SecurityAuditEvent.Outcome.SUCCESS
+                    : SecurityAuditEvent.Outcome.FAILURE;
+            (outcome == SecurityAuditEvent.Outcome.SUCCESS ? audited.successes() : audited.failures())
+                    .record(latencyNanos, TimeUnit.NANOSECONDS);
+
+            Caller caller = authenticatedCaller();
+            if (caller == null) {
+                caller = attribution != null
+                        ? new Caller(attribution.subject(), attribution.userId())
+                        : audited.callerFromArguments().apply(joinPoint.getArgs());
+            }
+
+            String details = encoder.encode(new SecurityAuditEvent(
+                    audited.action(),
+                    audited.method(),
+                    caller.principal(),
+                    outcome,
+                    latencyNanos,
+                    failure == null ? null : failure.getClass().getSimpleName()
+            ));
+            log.debug("Security event {} {}", audited.action(), details);
+            auditLogWriter.offer(caller.userId(), audited.action(), details);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record security event for {}", auditable.action(), e);
+        }
+    }
+
+    private static boolean rejectedBeforeAnyWork(Throwable failure) {
+        return failure instanceof AdmissionRejectedException
+                || (failure instanceof BusinessException business && business.getPayload() != null
+                && ExceptionPayloadFactory.INVALID_MFA_CHALLENGE.getCode().equals(business.getPayload().getCode()));
     }
 
-    @AfterThrowing(
-            pointcut = "@annotation(auditable)",
-            throwing = "ex"
-    )
-    public void auditFailure(JoinPoint joinPoint, Auditable auditable, Exception ex) {
-        log.error("❌ SECURITY FAILURE: Action={} Method={} Exception={}",
-                auditable.action(),
-                joinPoint.getSignature().toShortString(),
-                ex.getMessage()
+    private AuditedMethod describe(Method method, Auditable auditable) {
+        String action = auditable.action().isEmpty() ? method.getName() : auditable.action();
+        return new AuditedMethod(
+                action,
+                method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                callerFromArguments(method, auditable.subject()),
+                timer(action, SecurityAuditEvent.Outcome.SUCCESS.name()),
+                timer(action, SecurityAuditEvent.Outcome.FAILURE.name()),
+                timer(action, REJECTED)
         );
     }
+
+    private static Caller authenticatedCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        String userId = authentication.getPrincipal() instanceof UserDetailsImpl principal ? principal.getId() : null;
+        return new Caller(authentication.getName(), userId);
+    }
+
+    /**
+     * Resolves, once per method, how to read the email of an unauthenticated call from its arguments.
+     */
+    private static Function<Object[], Caller> callerFromArguments(Method method, Auditable.Subject subject) {
+        Class<?>[] parameters = method.getParameterTypes();
+        if (subject != Auditable.Subject.EMAIL_ARGUMENT || parameters.length == 0) {
+            return args -> Caller.ANONYMOUS;
+        }
+        if (parameters[0] == String.class) {
+            return args -> new Caller((String) args[0], null);
+        }
+        Method getEmail;
+        try {
+            getEmail = parameters[0].getMethod("getEmail");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(method + " is audited by email but its first argument has no getEmail()", e);
+        }
+        return args -> {
+            try {
+                return args[0] == null ? Caller.ANONYMOUS : new Caller((String) getEmail.invoke(args[0]), null);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                return Caller.ANONYMOUS;
+            }
+        };
+    }
+
+    private Timer timer(String action, String outcome) {
+        return Timer.builder("security.action")
+                .description("Latency of audited security actions, including their transaction")
+                .tag("action", action)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * What the aspect resolves once per audited method: the action, the method name, how to find the caller of
+     * an unauthenticated call from its arguments and its timers.
+     */
+    private record AuditedMethod(String action, String method, Function<Object[], Caller> callerFromArguments,
+                                 Timer successes, Timer failures, Timer rejections) {
+    }
+
+    /**
+     * The principal name recorded in the event and the user ID the audit row is keyed by, either may be {@code null}.
+     */
+    private record Caller(String principal, String userId) {
+        static final Caller ANONYMOUS = new Caller(null, null);
+    }
 }
@@ -0,0 +1,64 @@
+package com.unipay.aspect;
+
+/**
+ * Lets an {@link com.unipay.annotation.Auditable} method declared with
+ * {@link com.unipay.annotation.Auditable.Subject#VERIFIED_TOKEN} name its caller once it has verified the token
+ * it was given, so {@link SecurityAuditAspect} attributes the event without verifying the token a second time.
+ *
+ * <p>The aspect opens an attribution for the duration of the call on the calling thread; outside of one,
+ * {@link #attribute(String, String)} does nothing.
+ */
+public final class SecurityAuditContext {
+
+    private static final ThreadLocal<Attribution> CURRENT = new ThreadLocal<>();
+
+    private SecurityAuditContext() {
+    }
+
+    /**
+     * Names the caller of the audited call in progress on this thread.
+     *
+     * @param subject the verified token's subject
+     * @param userId  the verified token's user ID, may be {@code null}
+     */
+    public static void attribute(String subject, String userId) {
+        Attribution attribution = CURRENT.get();
+        if (attribution != null) {
+            attribution.subject = subject;
+            attribution.userId = userId;
+        }
+    }
+
+    static Attribution open() {
+        Attribution attribution = new Attribution(CURRENT.get());
+        CURRENT.set(attribution);
+        return attribution;
+    }
+
+    static void close(Attribution attribution) {
+        if (attribution.enclosing == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(attribution.enclosing);
+        }
+    }
+
+    static final class Attribution {
+
+        private final Attribution enclosing;
+        private String subject;
+        private String userId;
+
+        private Attribution(Attribution enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        String subject() {
+            return subject;
+        }
+
+        String userId() {
+            return userId;
+        }
+    }
+}
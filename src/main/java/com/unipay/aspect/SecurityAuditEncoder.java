@@ -0,0 +1,69 @@
+package com.unipay.aspect;
+
+/**
+ * Encodes {@link SecurityAuditEvent}s as compact JSON for the {@code details} column of {@code audit_logs}.
+ *
+ * <p>Each thread encodes into its own buffer, allocated once at {@link #MAX_LENGTH} characters and reused, so
+ * encoding allocates nothing but the returned string. The action is stored in its own column and is not
+ * repeated here. String fields are escaped and cut to {@link #MAX_FIELD_LENGTH} characters, which keeps every
+ * encoded event within {@link #MAX_LENGTH}.
+ */
+public class SecurityAuditEncoder {
+
+    /** Length of the {@code audit_logs.details} column. */
+    public static final int MAX_LENGTH = 255;
+
+    /** Maximum encoded length of a string field, excluding its quotes. */
+    static final int MAX_FIELD_LENGTH = 40;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(MAX_LENGTH));
+
+    /**
+     * @param event the event to encode
+     * @return the event as a JSON object of at most {@link #MAX_LENGTH} characters
+     */
+    public String encode(SecurityAuditEvent event) {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        buffer.append("{\"method\":");
+        appendString(buffer, event.method());
+        buffer.append(",\"principal\":");
+        appendString(buffer, event.principal());
+        buffer.append(",\"outcome\":\"").append(event.outcome().name()).append('"');
+        buffer.append(",\"latencyMicros\":").append(event.latencyNanos() / 1_000);
+        buffer.append(",\"exception\":");
+        appendString(buffer, event.exceptionClass());
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private static void appendString(StringBuilder buffer, String value) {
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        buffer.append('"');
+        int limit = buffer.length() + MAX_FIELD_LENGTH;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int escapedLength = c == '"' || c == '\\' ? 2 : c < 0x20 ? 6 : 1;
+            if (buffer.length() + escapedLength > limit) {
+                break;
+            }
+            if (c == '"' || c == '\\') {
+                buffer.append('\\').append(c);
+            } else if (c < 0x20) {
+                buffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            } else {
+                buffer.append(c);
+            }
+        }
+        if (Character.isHighSurrogate(buffer.charAt(buffer.length() - 1))) {
+            // The cut fell inside a surrogate pair
+            buffer.setLength(buffer.length() - 1);
+        }
+        buffer.append('"');
+    }
+}
@@ -0,0 +1,28 @@
+package com.unipay.aspect;
+
+/**
+ * One invocation of an {@link com.unipay.annotation.Auditable} method, as captured by {@link SecurityAuditAspect}.
+ * Only these fields are recorded; arguments and return values are not, since they carry credentials and tokens.
+ *
+ * @param action         the audited action
+ * @param method         the invoked method, as {@code SimpleClassName.method}
+ * @param principal      the authenticated principal's name, or the subject taken from the call's email or
+ *                       token argument; {@code null} if neither is known
+ * @param outcome        whether the method returned or threw
+ * @param latencyNanos   the time spent in the method, including its transaction
+ * @param exceptionClass the simple name of the thrown exception, {@code null} on success
+ */
+public record SecurityAuditEvent(
+        String action,
+        String method,
+        String principal,
+        Outcome outcome,
+        long latencyNanos,
+        String exceptionClass
+) {
+
+    public enum Outcome {
+        SUCCESS,
+        FAILURE
+    }
+}
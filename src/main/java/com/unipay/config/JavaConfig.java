@@ -1,21 +1,43 @@
 package com.unipay.config;
 
+import com.unipay.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class JavaConfig {
 
+    /**
+     * BCrypt running on a dedicated bounded pool, see {@link BoundedPasswordEncoder}.
+     * {@code threads} defaults to the number of available processors.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password-hashing.threads:0}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:32}") int queueCapacity,
+            @Value("${app.security.password-hashing.max-wait:5000}") long maxWait,
+            @Value("${app.security.password-hashing.retry-after:2000}") long retryAfter
+    ) {
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(),
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queueCapacity,
+                Duration.ofMillis(maxWait),
+                Duration.ofMillis(retryAfter),
+                meterRegistry
+        );
     }
 
     @Bean
@@ -48,6 +48,7 @@ public class SecurityConfig {
                         ).permitAll()
                         .requestMatchers(mvc.pattern("/v1/users/{userId}/mfa/**"))
                         .access(userIdAuthorizationManager)
+                        .requestMatchers(mvc.pattern("/v1/admin/**")).hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(sessionValidationFilter, UsernamePasswordAuthenticationFilter.class)
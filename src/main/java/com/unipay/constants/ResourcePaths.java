@@ -14,4 +14,7 @@ public class ResourcePaths {
     public static final String ADDRESS = "/address";
     public static final String FORGOT_PASSWORD = "/forgot-password";
     public static final String BUSINESSES = "/businesses";
+    public static final String ADMIN = "/admin";
+    public static final String LOGIN_THROTTLE_HOT_KEYS = "/login-throttle/hot-keys";
+    public static final String JWKS = "/.well-known/jwks.json";
 }
@@ -0,0 +1,33 @@
+package com.unipay.controller;
+
+import com.unipay.service.throttle.LoginThrottle;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static com.unipay.constants.ResourcePaths.*;
+
+@RestController
+@RequestMapping(V1 + ADMIN)
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final LoginThrottle loginThrottle;
+
+    @Operation(
+            summary = "Login throttle hot keys",
+            description = "Lists the emails, IPs and networks with the most failed logins in the current window, as seen by this node"
+    )
+    @GetMapping(LOGIN_THROTTLE_HOT_KEYS)
+    public ResponseEntity<List<LoginThrottle.HotKey>> getLoginThrottleHotKeys(
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(loginThrottle.hotKeys(Math.max(1, Math.min(limit, 500))));
+    }
+}
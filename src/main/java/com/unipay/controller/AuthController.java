@@ -12,15 +12,19 @@ import com.unipay.response.LoginResponse;
 import com.unipay.response.UserRegistrationResponse;
 import com.unipay.service.authentication.AuthenticationService;
 import com.unipay.service.mail.EmailService;
+import com.unipay.utils.SigningKeyRing;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 import static com.unipay.constants.ResourcePaths.*;
 
 @RestController
@@ -31,6 +35,7 @@ public class AuthController {
     private final UserMapper userMapper;
     private final EmailService emailService;
     private final AuthenticationService authenticationService;
+    private final SigningKeyRing signingKeyRing;
 
     @Operation(
             summary = "Register a new user",
@@ -166,4 +171,15 @@ public class AuthController {
         authenticationService.forgotPassword(email, request);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "JSON Web Key Set",
+            description = "Public keys accepted for verifying UniPay access tokens, for local verification by edge services"
+    )
+    @GetMapping(JWKS)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(signingKeyRing.jwksMaxAge()).cachePublic())
+                .body(signingKeyRing.jwks());
+    }
+}
@@ -14,6 +14,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
@@ -30,6 +32,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MFAController {
 
+    private static final String SVG_MEDIA_TYPE = "image/svg+xml";
+
     private final MFAService mfaService;
     private final UserService userService;
 
@@ -94,8 +98,36 @@ public class MFAController {
         try {
             User user = userService.getUserById(userId);
             response.setHeader("Content-Disposition", "attachment; filename=\"mfa-qrcode.png\"");
-            return mfaService.getImageData(mfaService.generateQrCodeImage(user));
-        } catch (IOException | BusinessException e) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            return mfaService.getQrCodePng(user);
+        } catch (BusinessException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate QR code");
+        } catch (QrGenerationException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "QR code generation failed", e);
+        }
+    }
+
+    @GetMapping(value = "/qrcode", params = "format=svg", produces = SVG_MEDIA_TYPE)
+    @Operation(
+            summary = "Get MFA QR code as SVG",
+            description = "Streams the QR code as vector SVG instead of a rasterised PNG",
+            security = @SecurityRequirement(name = "JWT"),
+            responses = {
+                    @ApiResponse(responseCode = "200", content = @Content(mediaType = SVG_MEDIA_TYPE)),
+                    @ApiResponse(responseCode = "403", description = "Access denied")
+            }
+    )
+    @PreAuthorize("#userId == principal.id")
+    public void getMfaQrCodeSvg(
+            @PathVariable String userId,
+            HttpServletResponse response
+    ) throws IOException {
+        try {
+            User user = userService.getUserById(userId);
+            response.setContentType(SVG_MEDIA_TYPE);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            mfaService.writeQrCodeSvg(user, response.getOutputStream());
+        } catch (BusinessException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate QR code");
         } catch (QrGenerationException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "QR code generation failed", e);
@@ -111,14 +143,14 @@ public class MFAController {
                     @ApiResponse(responseCode = "403", description = "Access denied")
             }
     )
-    @PreAuthorize("hasAuthority('ROLE_USER') and #userId == principal.id")
+    @PreAuthorize("@webSecurity.hasRole(authentication, 'USER') and #userId == principal.id")
     public RecoveryCodesResponse generateRecoveryCodes(
             @PathVariable String userId,
             @AuthenticationPrincipal UserDetailsImpl userDetails
     ) {
         try {
             validateUserAccess(userId, userDetails);
-            final User user = userDetails.getUser();
+            final User user = userService.getUserById(userId);
             List<String> codes = mfaService.generateRecoveryCodes(user);
             return new RecoveryCodesResponse(codes);
         } catch (BusinessException e) {
@@ -141,10 +173,7 @@ public class MFAController {
             @AuthenticationPrincipal User currentUser
     ) {
         User user = userService.getUserById(userId);
-        if (user.getMfaSettings() == null) {
-            throw new BusinessException(ExceptionPayloadFactory.MFA_NOT_ENABLED.get());
-        }
-        return new RecoveryCodesResponse(user.getMfaSettings().getRecoveryCodes().size());
+        return new RecoveryCodesResponse(mfaService.getRemainingRecoveryCodes(user));
     }
     private void validateUserAccess(String userId, UserDetailsImpl userDetails) {
         if (!userDetails.getId().equals(userId)) {
@@ -2,8 +2,6 @@ package com.unipay.dto;
 
 import lombok.Data;
 
-import java.util.List;
-
 /**
  * Contains settings and metadata related to the user's Multi-Factor Authentication (MFA).
  */
@@ -18,9 +16,4 @@ public class MFASettingsDto {
      * The user's MFA secret key used to generate time-based codes.
      */
     private String secret;
-
-    /**
-     * A list of recovery codes the user can use if they lose access to their MFA device.
-     */
-    private List<String> recoveryCodes;
 }
@@ -35,4 +35,9 @@ public class UserSessionDto {
      * After this time, the session is considered expired and the user will need to log in again.
      */
     private Instant expiresAt;
+
+    /**
+     * The last time the session was used, accurate to the activity flush interval.
+     */
+    private Instant lastSeenAt;
 }
@@ -0,0 +1,23 @@
+package com.unipay.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * {@link BusinessException} raised when a request is turned away to protect the service rather than
+ * because it is invalid. {@link RestExceptionHandler} adds a {@code Retry-After} header with {@link #getRetryAfter()}.
+ */
+@Getter
+public class AdmissionRejectedException extends BusinessException {
+
+    /**
+     * How long the client should wait before retrying.
+     */
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(ExceptionPayload payload, Duration retryAfter) {
+        super(payload);
+        this.retryAfter = retryAfter;
+    }
+}
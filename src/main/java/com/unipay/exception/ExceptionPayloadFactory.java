@@ -35,7 +35,9 @@ public enum ExceptionPayloadFactory {
     INVALID_TOKEN(17,HttpStatus.UNAUTHORIZED, "invalid.or.malformed.token"),
     BUSINESS_NOT_FOUND(18,HttpStatus.NOT_FOUND, "business.not.found"),
     BUSINESS_FOR_USER_NOT_FOUND(19,HttpStatus.NOT_FOUND, "business.for.user.not.found"),
-    USER_PROFILE_NOT_FOUND(20, HttpStatus.NOT_FOUND, "user.profile.not.found");
+    USER_PROFILE_NOT_FOUND(20, HttpStatus.NOT_FOUND, "user.profile.not.found"),
+    SERVICE_OVERLOADED(21, HttpStatus.SERVICE_UNAVAILABLE, "service.overloaded"),
+    TOO_MANY_LOGIN_ATTEMPTS(22, HttpStatus.TOO_MANY_REQUESTS, "too.many.login.attempts");
 
     private final Integer code;
     private final HttpStatus status;
@@ -2,6 +2,7 @@ package com.unipay.exception;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -37,6 +38,24 @@ public class RestExceptionHandler {
                 .build());
     }
 
+    /**
+     * Handles `AdmissionRejectedException`, adding a `Retry-After` header (in seconds) to the error response.
+     * @param ex The thrown `AdmissionRejectedException`.
+     * @return The error response with the relevant error code, message, HTTP status and retry delay.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ExceptionResponse> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        ExceptionPayload payload = ex.getPayload();
+        String errorMessage = messageSource.getMessage(payload.getMessage(), payload.getArgs());
+        log.warn("Request rejected : {}", errorMessage);
+        return ResponseEntity.status(payload.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(ExceptionResponse.builder()
+                        .code(payload.getCode())
+                        .message(errorMessage)
+                        .build());
+    }
+
     /**
      * Handles invalid JSON input exceptions and returns a predefined error response.
      * @param e The exception indicating invalid JSON input.
@@ -38,6 +38,6 @@ public class UserRegistrationHelper {
 
     @Transactional
     public void auditLogCreate(User user, String action, String details) {
-        auditLogService.createAuditLog(user, action, details);
+        auditLogService.createAuditLogSynchronously(user.getId(), action, details);
     }
 }
@@ -0,0 +1,60 @@
+package com.unipay.models;
+
+import com.unipay.utils.SigningKeyRing;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An asymmetric JWT signing key shared by every node. The ID is the key's {@code kid}.
+ *
+ * <p>The public key is stored as its X.509 encoding. The private key is stored as its PKCS#8 encoding,
+ * encrypted with AES-GCM under {@code jwt.key-encryption-key}, so a database leak alone does not allow
+ * tokens to be forged.
+ *
+ * @see com.unipay.service.signing.SigningKeyStore
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "jwt_signing_keys", indexes = {
+        @Index(name = "idx_signing_key_activation", columnList = "activates_at")
+})
+public class JwtSigningKey extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private SigningKeyRing.Algorithm algorithm;
+
+    /**
+     * Base64 X.509 encoding of the public key.
+     */
+    @Column(name = "public_key", nullable = false, length = 512)
+    private String publicKey;
+
+    /**
+     * Base64 of the AES-GCM IV followed by the encrypted PKCS#8 encoding of the private key.
+     */
+    @Column(name = "encrypted_private_key", nullable = false, length = 512)
+    private String encryptedPrivateKey;
+
+    /**
+     * When the key starts signing tokens. It is published for verification as soon as it is stored.
+     */
+    @Column(name = "activates_at", nullable = false)
+    private Instant activatesAt;
+
+    public static JwtSigningKey create(SigningKeyRing.Algorithm algorithm, String publicKey,
+                                       String encryptedPrivateKey, Instant activatesAt) {
+        final JwtSigningKey signingKey = new JwtSigningKey();
+
+        signingKey.algorithm = algorithm;
+        signingKey.publicKey = publicKey;
+        signingKey.encryptedPrivateKey = encryptedPrivateKey;
+        signingKey.activatesAt = activatesAt;
+
+        return signingKey;
+    }
+}
@@ -0,0 +1,41 @@
+package com.unipay.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A single unused MFA recovery code. Only a keyed HMAC-SHA256 digest of the code is stored, so a database
+ * leak does not reveal usable codes and a code can be found with one lookup on the unique digest index.
+ * Using a code deletes its row.
+ *
+ * @see com.unipay.service.mfa.RecoveryCodeHasher
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "mfa_recovery_codes", indexes = {
+        @Index(name = "uk_recovery_code_digest", columnList = "code_digest", unique = true),
+        @Index(name = "idx_recovery_code_user", columnList = "user_id")
+})
+public class RecoveryCode extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    /**
+     * Base64url HMAC-SHA256 digest of the user ID and the code.
+     */
+    @Column(name = "code_digest", nullable = false, length = 64)
+    private String codeDigest;
+
+    public static RecoveryCode create(User user, String codeDigest) {
+        final RecoveryCode recoveryCode = new RecoveryCode();
+
+        recoveryCode.user = user;
+        recoveryCode.codeDigest = codeDigest;
+
+        return recoveryCode;
+    }
+}
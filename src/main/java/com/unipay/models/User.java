@@ -110,7 +110,7 @@ public class User extends BaseEntity {
      * Logs of actions performed by the user within the system, including administrative actions.
      * This allows for tracking user activities for security and auditing purposes.
      */
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private Set<AuditLog> auditLogs = new HashSet<>();
 
     @OneToOne(
@@ -4,6 +4,7 @@ package com.unipay.models;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 
@@ -13,7 +14,8 @@ import java.time.Instant;
 @Entity
 @Table(name = "user_sessions", indexes = {
         @Index(name = "idx_session_expiry", columnList = "expiresAt"),
-        @Index(name = "idx_session_revoked", columnList = "revoked")
+        @Index(name = "idx_session_revoked", columnList = "revoked"),
+        @Index(name = "idx_session_user", columnList = "user_id, revoked")
 })
 public class UserSession extends BaseEntity{
     @Column(nullable = false)
@@ -22,6 +24,15 @@ public class UserSession extends BaseEntity{
     private String ipAddress;
     private String userAgent;
     private Instant expiresAt;
+    private Instant lastSeenAt;
+
+    /**
+     * Current generation of the session's refresh-token family, advanced on every refresh. Defaults to
+     * {@code 0} in the schema as well, for rows written by plain SQL such as the Redis store's audit copy.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long refreshGeneration = 0L;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
@@ -0,0 +1,60 @@
+package com.unipay.payload;
+
+import com.unipay.enums.RoleName;
+import com.unipay.enums.UserStatus;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-only snapshot of exactly what authentication needs from a user, loaded without materializing
+ * the {@code User} entity or any of its associations. Permissions are not loaded per user; they are
+ * resolved from the roles by the {@code AuthorityMatrix}.
+ *
+ * @param id           the user ID
+ * @param email        the user's email, used as the username
+ * @param passwordHash the encoded password
+ * @param status       the account status
+ * @param mfaEnabled   whether MFA is enabled
+ * @param roles        the names of the user's roles
+ */
+public record PrincipalProjection(
+        String id,
+        String email,
+        String passwordHash,
+        UserStatus status,
+        boolean mfaEnabled,
+        Set<RoleName> roles
+) {
+
+    public PrincipalProjection {
+        roles = Set.copyOf(roles);
+    }
+
+    /**
+     * Folds the rows of the flat principal query into one projection.
+     *
+     * @param rows the rows for a single user
+     * @return the projection, or empty if there are no rows
+     */
+    public static Optional<PrincipalProjection> fold(List<PrincipalRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+        for (PrincipalRow row : rows) {
+            if (row.role() != null) roles.add(row.role());
+        }
+        PrincipalRow first = rows.get(0);
+        return Optional.of(new PrincipalProjection(
+                first.id(),
+                first.email(),
+                first.passwordHash(),
+                first.status(),
+                Boolean.TRUE.equals(first.mfaEnabled()),
+                roles
+        ));
+    }
+}
@@ -0,0 +1,21 @@
+package com.unipay.payload;
+
+import com.unipay.enums.RoleName;
+import com.unipay.enums.UserStatus;
+
+/**
+ * One row of the flat principal query in {@code UserRepository}: the user's scalar authentication
+ * attributes repeated for every role. Folded into a {@link PrincipalProjection}.
+ *
+ * @param mfaEnabled {@code null} when the user has no MFA settings
+ * @param role       {@code null} when the user has no roles
+ */
+public record PrincipalRow(
+        String id,
+        String email,
+        String passwordHash,
+        UserStatus status,
+        Boolean mfaEnabled,
+        RoleName role
+) {
+}
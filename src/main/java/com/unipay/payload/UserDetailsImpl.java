@@ -2,54 +2,111 @@ package com.unipay.payload;
 
 
 import com.unipay.enums.UserStatus;
-import com.unipay.models.Role;
-import com.unipay.models.User;
+import com.unipay.security.AuthoritySet;
+import com.unipay.utils.VerifiedToken;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.time.Instant;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
 
 
+/**
+ * Authenticated principal. It holds a copy of the few user attributes needed for authentication and
+ * authorization rather than the {@code User} entity, so it can be built either from a
+ * {@link PrincipalProjection} or, in stateless principal mode, straight from the claims of a verified
+ * access token. Its size does not depend on how much history the user has. Endpoints that need the full
+ * user graph load it explicitly by {@link #getId()}.
+ *
+ * <p>Instances are immutable so they can be shared through the principal cache; the per-session MFA
+ * state is applied with {@link #withMfaVerified(boolean)}, which returns a copy.
+ */
 @Getter
-@Setter
-@RequiredArgsConstructor
 public class UserDetailsImpl implements UserDetails {
 
-    private final User user;
-    private boolean mfaVerified = false;
+    private final String id;
+    private final String email;
+    private final String passwordHash;
+    private final UserStatus status;
+    private final boolean mfaRequired;
+    private final AuthoritySet authorities;
+    private final boolean mfaVerified;
+
+    /**
+     * @param principal   the user's authentication projection
+     * @param authorities the interned authority set for the user's roles
+     */
+    public UserDetailsImpl(PrincipalProjection principal, AuthoritySet authorities) {
+        this(
+                principal.id(),
+                principal.email(),
+                principal.passwordHash(),
+                principal.status(),
+                principal.mfaEnabled(),
+                authorities,
+                false
+        );
+    }
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        Set<GrantedAuthority> authorities = new HashSet<>();
+    private UserDetailsImpl(String id,
+                            String email,
+                            String passwordHash,
+                            UserStatus status,
+                            boolean mfaRequired,
+                            AuthoritySet authorities,
+                            boolean mfaVerified) {
+        this.id = id;
+        this.email = email;
+        this.passwordHash = passwordHash;
+        this.status = status;
+        this.mfaRequired = mfaRequired;
+        this.authorities = authorities;
+        this.mfaVerified = mfaVerified;
+    }
 
-        user.getUserRoles().forEach(userRole -> {
-            Role role = userRole.getRole();
-            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getName()));
+    /**
+     * Builds a principal from a verified access token without touching the database.
+     * Access tokens are only issued to active users and deactivation revokes every session,
+     * so a token that passed verification and session validation belongs to an active user.
+     *
+     * @param token the verified access token
+     * @return a principal carrying the token's user ID, subject, MFA state and authorities
+     */
+    public static UserDetailsImpl fromToken(VerifiedToken token) {
+        return new UserDetailsImpl(
+                token.userId(),
+                token.subject(),
+                null,
+                UserStatus.ACTIVE,
+                token.mfaEnabled(),
+                token.authorities(),
+                token.mfaVerified()
+        );
+    }
 
-            role.getPermissions().forEach(permission ->
-                    authorities.add(new SimpleGrantedAuthority(permission.getName().name()))
-            );
-        });
+    /**
+     * @param verified whether the MFA challenge was completed for the current session
+     * @return this principal if its MFA state already matches, otherwise a copy with the given state
+     */
+    public UserDetailsImpl withMfaVerified(boolean verified) {
+        if (verified == mfaVerified) {
+            return this;
+        }
+        return new UserDetailsImpl(id, email, passwordHash, status, mfaRequired, authorities, verified);
+    }
 
+    @Override
+    public AuthoritySet getAuthorities() {
         return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPasswordHash();
+        return passwordHash;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -59,48 +116,37 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.getStatus() != UserStatus.SUSPENDED;
+        return status != UserStatus.SUSPENDED;
     }
 
     @Override
     public boolean isCredentialsNonExpired() {
         return true;
     }
+    /**
+     * MFA is not part of this check: a user with MFA enabled must still pass password authentication to
+     * be issued a challenge. The MFA state is enforced per request by {@code SessionValidationFilter}.
+     */
     @Override
     public boolean isEnabled() {
-        return user.getStatus() == UserStatus.ACTIVE &&
-                (!isMfaRequired() || mfaVerified);
-    }
-    public String getId() {
-        return user.getId();
+        return status == UserStatus.ACTIVE;
     }
     public boolean isMfaVerified() {
         return mfaVerified;
     }
     public boolean isMfaRequired() {
-        return user.getMfaSettings() != null && user.getMfaSettings().isEnabled();
+        return mfaRequired;
     }
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         UserDetailsImpl that = (UserDetailsImpl) o;
-        return Objects.equals(user.getId(), that.user.getId());
+        return Objects.equals(id, that.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(user.getId());
-    }
-
-    // Add session awareness
-    public boolean isSessionValid(String sessionId) {
-        return user.getSessions().stream()
-                .anyMatch(s ->
-                        s.getId().equals(sessionId) &&
-                                !s.isRevoked() &&
-                                s.getExpiresAt().isAfter(Instant.now())
-                );
+        return Objects.hash(id);
     }
 }
-
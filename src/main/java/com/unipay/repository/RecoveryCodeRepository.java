@@ -0,0 +1,28 @@
+package com.unipay.repository;
+
+import com.unipay.models.RecoveryCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RecoveryCodeRepository extends JpaRepository<RecoveryCode, String> {
+
+    long countByUser_Id(String userId);
+
+    /**
+     * Deletes the user's recovery code with this digest, a single lookup on {@code uk_recovery_code_digest}.
+     * Concurrent attempts with the same code cannot both succeed: only one delete affects the row.
+     *
+     * @return {@code 1} if the code existed and has been consumed, {@code 0} otherwise
+     */
+    @Modifying
+    @Query("DELETE FROM RecoveryCode r WHERE r.codeDigest = :digest AND r.user.id = :userId")
+    int consume(@Param("userId") String userId, @Param("digest") String digest);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RecoveryCode r WHERE r.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") String userId);
+}
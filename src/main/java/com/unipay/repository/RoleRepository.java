@@ -3,12 +3,21 @@ package com.unipay.repository;
 import com.unipay.enums.RoleName;
 import com.unipay.models.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, String> {
     Optional<Role> findByName(RoleName roleName);
+
+    /**
+     * Returns {@code [roleName, permissionName]} for every role and permission pair; the permission is
+     * {@code null} for a role without permissions.
+     */
+    @Query("SELECT r.name, p.name FROM Role r LEFT JOIN r.permissions p")
+    List<Object[]> findRolePermissionNames();
 }
@@ -2,6 +2,8 @@ package com.unipay.repository;
 
 import com.unipay.criteria.UserCriteria;
 import com.unipay.models.User;
+import com.unipay.payload.PrincipalProjection;
+import com.unipay.payload.PrincipalRow;
 import com.unipay.utils.UserSpecification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +14,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -82,6 +85,45 @@ public interface UserRepository extends JpaRepository<User, String>, JpaSpecific
            """)
     Optional<User> findByEmailWithRolesAndPermissions(@Param("email") String email);
 
+    /**
+     * Selects the authentication attributes of a user as flat rows, one per role,
+     * without loading the {@link User} entity or its associations.
+     *
+     * @param email the email
+     * @return the rows, empty if no user has this email
+     */
+    @Query("""
+           SELECT new com.unipay.payload.PrincipalRow(u.id, u.email, u.passwordHash, u.status, m.enabled, r.name)
+           FROM User u
+           LEFT JOIN u.mfaSettings m
+           LEFT JOIN u.userRoles ur
+           LEFT JOIN ur.role r
+           WHERE u.email = :email
+           """)
+    List<PrincipalRow> findPrincipalRowsByEmail(@Param("email") String email);
+
+    /**
+     * Loads the slim authentication projection of a user by email.
+     *
+     * @param email the email
+     * @return Optional containing the projection if the user exists
+     */
+    default Optional<PrincipalProjection> findPrincipalByEmail(String email) {
+        return PrincipalProjection.fold(findPrincipalRowsByEmail(email));
+    }
+
+    /**
+     * Selects the TOTP secret of a user who has MFA enabled, without loading the user or its settings entity.
+     *
+     * @param userId the user ID
+     * @return Optional containing the Base32 secret if MFA is enabled for the user
+     */
+    @Query("""
+           SELECT m.secret FROM MFASettings m
+           WHERE m.user.id = :userId AND m.enabled = true
+           """)
+    Optional<String> findEnabledMfaSecret(@Param("userId") String userId);
+
     /**
      * Finds a user by ID and fetches their MFA settings.
      *
@@ -3,13 +3,62 @@ package com.unipay.repository;
 import com.unipay.models.User;
 import com.unipay.models.UserSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface UserSessionRepository extends JpaRepository<UserSession, String> {
     void deleteByUser(User user);
     List<UserSession> findByUser(User user);
+
+    /**
+     * Returns {@code [id, expiresAt]} of every unrevoked session expiring after {@code now},
+     * a range scan on {@code idx_session_expiry} that loads no entity state.
+     */
+    @Query("SELECT s.id, s.expiresAt FROM UserSession s WHERE s.expiresAt > :now AND s.revoked = false")
+    List<Object[]> findLiveSessionExpiries(@Param("now") Instant now);
+
+    @Query("SELECT s.id FROM UserSession s WHERE s.user.id = :userId AND s.revoked = false")
+    List<String> findActiveSessionIds(@Param("userId") String userId);
+
+    /**
+     * Revokes every active session of the user in a single statement.
+     *
+     * @return the number of sessions revoked
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserSession s SET s.revoked = true WHERE s.user.id = :userId AND s.revoked = false")
+    int revokeAllByUserId(@Param("userId") String userId);
+
+    /**
+     * Advances the refresh-token generation of an unrevoked session, only if it is still {@code generation}.
+     *
+     * @return {@code 1} if the generation was advanced, {@code 0} otherwise
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+           UPDATE UserSession s SET s.refreshGeneration = s.refreshGeneration + 1
+           WHERE s.id = :id AND s.refreshGeneration = :generation AND s.revoked = false
+           """)
+    int advanceRefreshGeneration(@Param("id") String id, @Param("generation") long generation);
+
+    /**
+     * Returns the refresh-token generation of an unrevoked session whose family has not been ended.
+     */
+    @Query("SELECT s.refreshGeneration FROM UserSession s WHERE s.id = :id AND s.revoked = false AND s.refreshGeneration >= 0")
+    Optional<Long> findRefreshGeneration(@Param("id") String id);
+
+    /**
+     * Ends the refresh-token family of a session by moving it to a generation no token carries.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserSession s SET s.refreshGeneration = -1 WHERE s.id = :id")
+    int endRefreshFamily(@Param("id") String id);
 }
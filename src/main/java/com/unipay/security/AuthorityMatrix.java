@@ -0,0 +1,76 @@
+package com.unipay.security;
+
+import com.unipay.enums.PermissionName;
+import com.unipay.enums.RoleName;
+import com.unipay.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Role-to-permission mapping compiled from the {@code roles} and {@code role_permissions} tables into one
+ * interned {@link AuthoritySet} per combination of roles, so every principal with the same roles shares
+ * the same immutable set.
+ *
+ * <p>Compiled on startup, again by {@link UserDetailsServiceImpl} whenever a
+ * {@link RolePermissionsChangedEvent} commits, and on {@code app.security.authority-matrix.refresh-interval}
+ * as a safety net for a node that missed a change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthorityMatrix {
+
+    private static final RoleName[] ROLES = RoleName.values();
+
+    private final RoleRepository roleRepository;
+    private volatile AuthoritySet[] setsByRoleMask;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${app.security.authority-matrix.refresh-interval:300000}",
+            fixedDelayString = "${app.security.authority-matrix.refresh-interval:300000}"
+    )
+    public void compile() {
+        long[] permissionsByRole = new long[ROLES.length];
+        for (Object[] row : roleRepository.findRolePermissionNames()) {
+            if (row[1] != null) {
+                permissionsByRole[((RoleName) row[0]).ordinal()] |= AuthoritySet.bit((PermissionName) row[1]);
+            }
+        }
+        AuthoritySet[] sets = new AuthoritySet[1 << ROLES.length];
+        for (int roleMask = 0; roleMask < sets.length; roleMask++) {
+            long permissionMask = 0L;
+            for (int role = 0; role < ROLES.length; role++) {
+                if ((roleMask & (1 << role)) != 0) {
+                    permissionMask |= permissionsByRole[role];
+                }
+            }
+            sets[roleMask] = AuthoritySet.of(roleMask, permissionMask);
+        }
+        setsByRoleMask = sets;
+        log.debug("Compiled authority matrix for {} role combinations", sets.length);
+    }
+
+    /**
+     * @param roles the principal's roles
+     * @return the interned authority set for exactly these roles and their permissions
+     */
+    public AuthoritySet forRoles(Collection<RoleName> roles) {
+        AuthoritySet[] sets = setsByRoleMask;
+        if (sets == null) {
+            compile();
+            sets = setsByRoleMask;
+        }
+        int roleMask = 0;
+        for (RoleName role : roles) {
+            roleMask |= 1 << role.ordinal();
+        }
+        return sets[roleMask];
+    }
+}
@@ -0,0 +1,229 @@
+package com.unipay.security;
+
+import com.unipay.enums.PermissionName;
+import com.unipay.enums.RoleName;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable set of granted authorities backed by two bitmasks, one over {@link RoleName} and one over
+ * {@link PermissionName} ordinals. Role and permission checks are single bit tests, and iteration walks
+ * a precomputed list of shared {@link GrantedAuthority} instances, so reading a principal's authorities
+ * allocates nothing.
+ *
+ * <p>Sets for database principals are compiled per role combination by {@link AuthorityMatrix}; every set
+ * obtained through {@link #of} or {@link #fromCompactClaim(String)} is interned, so equal sets are shared.
+ *
+ * <p>{@link #toCompactClaim()} encodes a set as {@code {version}.{roleMask}.{base64url(permissionMask)}}
+ * for access tokens. The version is a checksum of the role and permission names in ordinal order, so
+ * tokens issued before either enum changes are rejected instead of being decoded into the wrong authorities.
+ */
+public final class AuthoritySet extends AbstractSet<GrantedAuthority> {
+
+    private static final RoleName[] ROLES = RoleName.values();
+    private static final PermissionName[] PERMISSIONS = PermissionName.values();
+    private static final GrantedAuthority[] ROLE_AUTHORITIES = new GrantedAuthority[ROLES.length];
+    private static final GrantedAuthority[] PERMISSION_AUTHORITIES = new GrantedAuthority[PERMISSIONS.length];
+    private static final long VALID_ROLE_BITS = lowBits(ROLES.length);
+    private static final long VALID_PERMISSION_BITS = lowBits(PERMISSIONS.length);
+    private static final Map<String, Long> ROLE_BITS = new HashMap<>();
+    private static final Map<String, Long> PERMISSION_BITS = new HashMap<>();
+    private static final Map<Masks, AuthoritySet> INTERNED = new ConcurrentHashMap<>();
+
+    static {
+        if (ROLES.length > Long.SIZE || PERMISSIONS.length > Long.SIZE) {
+            throw new IllegalStateException("AuthoritySet supports at most 64 roles and 64 permissions");
+        }
+        for (RoleName role : ROLES) {
+            ROLE_AUTHORITIES[role.ordinal()] = new SimpleGrantedAuthority("ROLE_" + role.name());
+            ROLE_BITS.put("ROLE_" + role.name(), bit(role));
+        }
+        for (PermissionName permission : PERMISSIONS) {
+            PERMISSION_AUTHORITIES[permission.ordinal()] = new SimpleGrantedAuthority(permission.name());
+            PERMISSION_BITS.put(permission.name(), bit(permission));
+        }
+    }
+
+    /** Version of the compact claim encoding, derived from the current role and permission tables. */
+    public static final String ENCODING_VERSION = encodingVersion();
+
+    public static final AuthoritySet EMPTY = of(0L, 0L);
+
+    private final long roleMask;
+    private final long permissionMask;
+    private final List<GrantedAuthority> authorities;
+
+    private AuthoritySet(long roleMask, long permissionMask) {
+        this.roleMask = roleMask;
+        this.permissionMask = permissionMask;
+        List<GrantedAuthority> list = new ArrayList<>(Long.bitCount(roleMask) + Long.bitCount(permissionMask));
+        for (long bits = roleMask; bits != 0; bits &= bits - 1) {
+            list.add(ROLE_AUTHORITIES[Long.numberOfTrailingZeros(bits)]);
+        }
+        for (long bits = permissionMask; bits != 0; bits &= bits - 1) {
+            list.add(PERMISSION_AUTHORITIES[Long.numberOfTrailingZeros(bits)]);
+        }
+        this.authorities = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Builds a set from authority names, e.g. the {@code authorities} claim of an access token.
+     * Names that match no role or permission are ignored.
+     *
+     * @param names authority names such as {@code ROLE_USER} or {@code VIEW_PROFILE}
+     * @return the corresponding set
+     */
+    public static AuthoritySet of(Collection<String> names) {
+        long roles = 0L;
+        long permissions = 0L;
+        for (String name : names) {
+            Long role = ROLE_BITS.get(name);
+            if (role != null) {
+                roles |= role;
+            } else {
+                permissions |= PERMISSION_BITS.getOrDefault(name, 0L);
+            }
+        }
+        return of(roles, permissions);
+    }
+
+    /**
+     * @param roleMask       bits over {@link RoleName} ordinals
+     * @param permissionMask bits over {@link PermissionName} ordinals
+     * @return the interned set for these masks
+     * @throws IllegalArgumentException if either mask has a bit at or above the size of its enum
+     */
+    public static AuthoritySet of(long roleMask, long permissionMask) {
+        if ((roleMask & ~VALID_ROLE_BITS) != 0 || (permissionMask & ~VALID_PERMISSION_BITS) != 0) {
+            throw new IllegalArgumentException("Authority masks " + Long.toHexString(roleMask) + "/"
+                    + Long.toHexString(permissionMask) + " name roles or permissions that do not exist");
+        }
+        return INTERNED.computeIfAbsent(new Masks(roleMask, permissionMask),
+                masks -> new AuthoritySet(masks.roles(), masks.permissions()));
+    }
+
+    /**
+     * Decodes a claim produced by {@link #toCompactClaim()}.
+     *
+     * @param claim the compact claim
+     * @return the interned set
+     * @throws IllegalArgumentException if the claim is malformed, was encoded for different role or permission
+     *                                  tables or names a role or permission that does not exist
+     */
+    public static AuthoritySet fromCompactClaim(String claim) {
+        String[] parts = claim.split("\\.");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed compact authorities claim");
+        }
+        if (!ENCODING_VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Compact authorities claim version " + parts[0]
+                    + " does not match " + ENCODING_VERSION);
+        }
+        long roleMask = Long.parseLong(parts[1]);
+        byte[] permissions = Base64.getUrlDecoder().decode(parts[2]);
+        if (permissions.length != Long.BYTES) {
+            throw new IllegalArgumentException("Compact authorities claim permission mask must be "
+                    + Long.BYTES + " bytes, was " + permissions.length);
+        }
+        return of(roleMask, ByteBuffer.wrap(permissions).getLong());
+    }
+
+    /**
+     * @return this set encoded as {@code {version}.{roleMask}.{base64url(permissionMask)}}
+     */
+    public String toCompactClaim() {
+        byte[] permissions = ByteBuffer.allocate(Long.BYTES).putLong(permissionMask).array();
+        return ENCODING_VERSION + "." + roleMask + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(permissions);
+    }
+
+    public static long bit(RoleName role) {
+        return 1L << role.ordinal();
+    }
+
+    public static long bit(PermissionName permission) {
+        return 1L << permission.ordinal();
+    }
+
+    public boolean hasRole(RoleName role) {
+        return (roleMask & bit(role)) != 0;
+    }
+
+    public boolean hasPermission(PermissionName permission) {
+        return (permissionMask & bit(permission)) != 0;
+    }
+
+    public long roleMask() {
+        return roleMask;
+    }
+
+    public long permissionMask() {
+        return permissionMask;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof GrantedAuthority authority) || authority.getAuthority() == null) {
+            return false;
+        }
+        Long role = ROLE_BITS.get(authority.getAuthority());
+        if (role != null) {
+            return (roleMask & role) != 0;
+        }
+        Long permission = PERMISSION_BITS.get(authority.getAuthority());
+        return permission != null && (permissionMask & permission) != 0;
+    }
+
+    @Override
+    public Iterator<GrantedAuthority> iterator() {
+        return authorities.iterator();
+    }
+
+    @Override
+    public int size() {
+        return authorities.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof AuthoritySet other) {
+            return roleMask == other.roleMask && permissionMask == other.permissionMask;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static long lowBits(int count) {
+        return count == Long.SIZE ? -1L : (1L << count) - 1;
+    }
+
+    private static String encodingVersion() {
+        String tables = Arrays.stream(ROLES).map(Enum::name).collect(Collectors.joining(","))
+                + "|" + Arrays.stream(PERMISSIONS).map(Enum::name).collect(Collectors.joining(","));
+        CRC32 crc = new CRC32();
+        crc.update(tables.getBytes(StandardCharsets.UTF_8));
+        return Long.toString(crc.getValue(), 36);
+    }
+
+    private record Masks(long roles, long permissions) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.unipay.security;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published when something captured in a user's principal (status, password, roles, permissions or MFA
+ * enrolment) changes. The cached principals of the listed users are dropped once the publishing
+ * transaction commits.
+ *
+ * @param userIds the IDs of the affected users
+ */
+public record PrincipalChangedEvent(Set<String> userIds) {
+
+    public PrincipalChangedEvent {
+        userIds = Set.copyOf(userIds);
+    }
+
+    public static PrincipalChangedEvent of(String userId) {
+        return new PrincipalChangedEvent(userId == null ? Set.of() : Set.of(userId));
+    }
+
+    public static PrincipalChangedEvent of(Collection<String> userIds) {
+        return new PrincipalChangedEvent(Set.copyOf(userIds));
+    }
+}
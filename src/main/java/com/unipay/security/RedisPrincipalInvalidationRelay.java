@@ -0,0 +1,78 @@
+package com.unipay.security;
+
+import com.unipay.enums.RoleName;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fans {@link PrincipalChangedEvent}s and {@link RolePermissionsChangedEvent}s out to every node over Redis
+ * pub/sub so each node drops the affected principals from its {@link UserDetailsServiceImpl} cache and
+ * recompiles its {@link AuthorityMatrix}. Active with {@code app.security.store=redis}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.security.store", havingValue = "redis")
+public class RedisPrincipalInvalidationRelay implements MessageListener {
+
+    static final ChannelTopic CHANNEL = new ChannelTopic("unipay:principal-invalidations");
+    private static final String USERS = "users:";
+    private static final String ROLE = "role:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final UserDetailsServiceImpl userDetailsService;
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, CHANNEL);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrincipalChanged(PrincipalChangedEvent event) {
+        if (!event.userIds().isEmpty()) {
+            publish(USERS + String.join(",", event.userIds()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolePermissionsChanged(RolePermissionsChangedEvent event) {
+        publish(ROLE + event.role().name());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(ROLE)) {
+            userDetailsService.onRolePermissionsChanged(
+                    new RolePermissionsChangedEvent(RoleName.valueOf(body.substring(ROLE.length()))));
+        } else if (body.startsWith(USERS)) {
+            Set<String> userIds = Arrays.stream(body.substring(USERS.length()).split(","))
+                    .collect(Collectors.toSet());
+            userDetailsService.invalidate(userIds);
+        }
+    }
+
+    private void publish(String body) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL.getTopic(), body);
+        } catch (RuntimeException e) {
+            // Other nodes still pick the change up when their entries expire or the matrix is refreshed
+            log.warn("Could not publish principal invalidation {}", body, e);
+        }
+    }
+}
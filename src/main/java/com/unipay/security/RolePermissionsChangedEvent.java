@@ -0,0 +1,12 @@
+package com.unipay.security;
+
+import com.unipay.enums.RoleName;
+
+/**
+ * Published when the permissions of a role change. Once the publishing transaction commits the
+ * {@link AuthorityMatrix} is recompiled and the cached principals holding the role are dropped.
+ *
+ * @param role the role whose permissions changed
+ */
+public record RolePermissionsChangedEvent(RoleName role) {
+}
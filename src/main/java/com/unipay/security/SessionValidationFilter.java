@@ -4,7 +4,10 @@ package com.unipay.security;
 import com.unipay.exception.MfaVerificationRequiredException;
 import com.unipay.exception.SessionExpiredException;
 import com.unipay.payload.UserDetailsImpl;
+import com.unipay.service.session.SessionActivityTracker;
+import com.unipay.service.session.UserSessionService;
 import com.unipay.utils.JwtService;
+import com.unipay.utils.VerifiedToken;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -12,12 +15,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -32,6 +34,15 @@ public class SessionValidationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final JwtAuthenticationEntryPoint authenticationEntryPoint;
     private final UserDetailsServiceImpl userDetailsService;
+    private final UserSessionService userSessionService;
+    private final SessionActivityTracker activityTracker;
+
+    /**
+     * {@code database} (default) loads the principal through {@link UserDetailsServiceImpl} on every request;
+     * {@code stateless} builds it from the access token claims and only checks session liveness.
+     */
+    @Value("${app.security.principal-mode:database}")
+    private String principalMode;
 
     @Override
     protected void doFilterInternal(
@@ -43,8 +54,7 @@ public class SessionValidationFilter extends OncePerRequestFilter {
             String authHeader = request.getHeader("Authorization");
 
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                validateToken(token);
+                VerifiedToken token = jwtService.verify(authHeader.substring(7));
                 processAuthentication(token, request);
             }
         }catch (JwtException e) {
@@ -65,25 +75,32 @@ public class SessionValidationFilter extends OncePerRequestFilter {
         authenticationEntryPoint.commence(request, response, exception);
     }
 
-    private void validateToken(String token) {
-        if (jwtService.isTokenExpired(token)) {
-            throw new JwtException("Token expired");
+    private void processAuthentication(VerifiedToken token, HttpServletRequest request) {
+        if (token.refresh() || token.mfaChallenge()) {
+            throw new JwtException("Token is not an access token");
         }
-    }
-
-    private void processAuthentication(String token, HttpServletRequest request) {
-        String sessionId = jwtService.extractSessionId(token);
-        String username = jwtService.extractUsername(token);
-
-        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(username);
+        UserDetailsImpl userDetails = resolvePrincipal(token);
 
-        validateSession(userDetails, sessionId);
+        validateSession(token.sessionId());
+        activityTracker.touch(token.sessionId());
         validateMfaState(userDetails, request);
         setSecurityContext(userDetails, request);
     }
 
-    private void validateSession(UserDetailsImpl userDetails, String sessionId) {
-        if (!userDetails.isSessionValid(sessionId)) {
+    private UserDetailsImpl resolvePrincipal(VerifiedToken token) {
+        if (isStateless() && token.userId() != null) {
+            return UserDetailsImpl.fromToken(token);
+        }
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(token.subject());
+        return userDetails.withMfaVerified(token.mfaVerified());
+    }
+
+    private boolean isStateless() {
+        return "stateless".equalsIgnoreCase(principalMode);
+    }
+
+    private void validateSession(String sessionId) {
+        if (sessionId == null || !userSessionService.isSessionValid(sessionId)) {
             throw new SessionExpiredException();
         }
     }
@@ -110,40 +127,4 @@ public class SessionValidationFilter extends OncePerRequestFilter {
         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authToken);
     }
-    private void handleError(HttpServletResponse response,
-                             int statusCode,
-                             String message) throws IOException {
-        // 1. Clear security context
-        SecurityContextHolder.clearContext();
-
-        // 2. Send standardized error response
-        response.sendError(statusCode, message);
-
-        // 3. Optional: Add security headers
-        response.setHeader("WWW-Authenticate", "Bearer error=\"invalid_token\"");
-    }
-    private void processJwtToken(String jwt, HttpServletRequest request) {
-        try {
-            String username = jwtService.extractUsername(jwt);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    setSecurityContextAuthentication(userDetails, request);
-                }
-            }
-        } catch (JwtException | UsernameNotFoundException e) {
-            logger.error("JWT processing error", e);
-        }
-    }
-
-    private void setSecurityContextAuthentication(UserDetails userDetails, HttpServletRequest request) {
-        UsernamePasswordAuthenticationToken authToken =
-                new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(authToken);
-    }
 }
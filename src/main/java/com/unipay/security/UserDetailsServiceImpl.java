@@ -1,28 +1,109 @@
 package com.unipay.security;
 
-import com.unipay.models.User;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.unipay.enums.RoleName;
 import com.unipay.payload.UserDetailsImpl;
 import com.unipay.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
+
+/**
+ * Loads principals by email, from the slim {@link com.unipay.payload.PrincipalProjection} rather than the
+ * {@code User} entity graph, through a bounded, TTL-limited cache of immutable {@link UserDetailsImpl}
+ * snapshots, so the roles and permissions fetch-join runs once per user per
+ * {@code app.security.principal-cache.ttl} instead of on every request. Concurrent misses for the same
+ * email share a single load.
+ *
+ * <p>Entries are dropped by user ID when a {@link PrincipalChangedEvent} commits; with
+ * {@code app.security.store=redis} the {@link RedisPrincipalInvalidationRelay} repeats the invalidation
+ * on every other node. Hit, miss and eviction counts are published under the {@code security.principals}
+ * cache name.
+ *
+ * <p>Authorities come from the {@link AuthorityMatrix}: principals with the same roles share one interned
+ * {@link AuthoritySet}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final AuthorityMatrix authorityMatrix;
+    private final LoadingCache<String, UserDetailsImpl> principals;
+
+    public UserDetailsServiceImpl(
+            UserRepository userRepository,
+            AuthorityMatrix authorityMatrix,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.principal-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.security.principal-cache.ttl:60000}") long ttl
+    ) {
+        this.userRepository = userRepository;
+        this.authorityMatrix = authorityMatrix;
+        this.principals = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build(CacheLoader.from(this::load));
+        GuavaCacheMetrics.monitor(meterRegistry, principals, "security.principals");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        log.info("Attempting to load user by email: {}", email);
-        User user = userRepository.findByEmailWithRolesAndPermissions(email)
+        try {
+            return principals.getUnchecked(email);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached principals of the given users on this node.
+     *
+     * @param userIds the IDs of the users whose principals changed
+     */
+    public void invalidate(Collection<String> userIds) {
+        if (!userIds.isEmpty()) {
+            principals.asMap().values().removeIf(principal -> userIds.contains(principal.getId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrincipalChanged(PrincipalChangedEvent event) {
+        invalidate(event.userIds());
+    }
+
+    /**
+     * Recompiles the {@link AuthorityMatrix}, then drops the cached principals holding the changed role
+     * so they reload with its new authority set.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolePermissionsChanged(RolePermissionsChangedEvent event) {
+        authorityMatrix.compile();
+        RoleName role = event.role();
+        principals.asMap().values().removeIf(principal -> principal.getAuthorities().hasRole(role));
+    }
+
+    private UserDetailsImpl load(String email) {
+        log.debug("Loading principal for email: {}", email);
+        return userRepository.findPrincipalByEmail(email)
+                .map(principal -> new UserDetailsImpl(principal, authorityMatrix.forRoles(principal.roles())))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-        return new UserDetailsImpl(user);
     }
 }
@@ -1,6 +1,8 @@
 package com.unipay.security;
 
 
+import com.unipay.enums.PermissionName;
+import com.unipay.enums.RoleName;
 import com.unipay.payload.UserDetailsImpl;
 import com.unipay.service.mfa.MFAService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -39,9 +41,28 @@ public class WebSecurity {
                 !request.getRequestURI().contains("/mfa/qrcode");
     }
 
+    /**
+     * Bit test on the principal's {@link AuthoritySet}, for use in {@code @PreAuthorize} expressions,
+     * e.g. {@code @webSecurity.hasRole(authentication, 'USER')}.
+     */
+    public boolean hasRole(Authentication authentication, RoleName role) {
+        return authentication != null
+                && authentication.getPrincipal() instanceof UserDetailsImpl userDetails
+                && userDetails.getAuthorities().hasRole(role);
+    }
+
+    /**
+     * Bit test on the principal's {@link AuthoritySet}, for use in {@code @PreAuthorize} expressions,
+     * e.g. {@code @webSecurity.hasPermission(authentication, 'MANAGE_ROLES')}.
+     */
+    public boolean hasPermission(Authentication authentication, PermissionName permission) {
+        return authentication != null
+                && authentication.getPrincipal() instanceof UserDetailsImpl userDetails
+                && userDetails.getAuthorities().hasPermission(permission);
+    }
+
     private boolean hasRequiredRole(UserDetailsImpl userDetails) {
-        return userDetails.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_USER"));
+        return userDetails.getAuthorities().hasRole(RoleName.USER);
     }
 }
 
@@ -1,7 +1,6 @@
 package com.unipay.service.audit_log;
 
 import com.unipay.models.AuditLog;
-import com.unipay.models.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -12,13 +11,25 @@ import org.springframework.data.domain.Pageable;
 public interface AuditLogService {
 
     /**
-     * Creates and saves an audit log entry for the specified user.
+     * Queues an audit log entry for the specified user. The entry is written in a batch by a background
+     * writer, after the current transaction commits if one is active.
      *
-     * @param user    The user who performed the action.
+     * @param userId  The ID of the user who performed the action.
      * @param action  The action performed by the user.
      * @param details Detailed information about the action.
      */
-    void createAuditLog(User user, String action, String details);
+    void createAuditLog(String userId, String action, String details);
+
+    /**
+     * Writes an audit log entry for the specified user on the calling thread, in the current transaction,
+     * so the entry is committed or rolled back together with the action it records. Meant for
+     * compliance-critical actions whose audit trail must not depend on a background writer.
+     *
+     * @param userId  The ID of the user who performed the action.
+     * @param action  The action performed by the user.
+     * @param details Detailed information about the action.
+     */
+    void createAuditLogSynchronously(String userId, String action, String details);
 
     /**
      * Retrieves an audit log by its ID or action.
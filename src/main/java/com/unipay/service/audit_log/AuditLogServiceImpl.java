@@ -3,8 +3,8 @@ package com.unipay.service.audit_log;
 import com.unipay.exception.BusinessException;
 import com.unipay.exception.ExceptionPayloadFactory;
 import com.unipay.models.AuditLog;
-import com.unipay.models.User;
 import com.unipay.repository.AuditLogRepository;
+import com.unipay.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -20,32 +20,41 @@ import java.time.LocalDateTime;
 public class AuditLogServiceImpl implements AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final UserRepository userRepository;
+    private final AuditLogWriter auditLogWriter;
 
     /**
-     * Creates and saves an audit log entry for the user, recording the action and its details.
+     * Queues the audit log entry with the {@link AuditLogWriter}; the user's audit log collection is not touched.
      *
-     * @param user    The user performing the action.
+     * @param userId  The ID of the user performing the action.
      * @param action  The action performed by the user.
      * @param details Detailed information about the action.
      */
+    @Override
+    public void createAuditLog(String userId, String action, String details) {
+        log.debug("Queueing Audit Log for user {}", userId);
+        auditLogWriter.submit(userId, action, details);
+    }
+
+    /**
+     * Saves the audit log entry in the current transaction. The user is attached by reference, so neither
+     * the user nor its audit log collection is loaded.
+     *
+     * @param userId  The ID of the user performing the action.
+     * @param action  The action performed by the user.
+     * @param details Detailed information about the action.
+     */
+    @Override
     @Transactional
-    public void createAuditLog(User user, String action, String details) {
-        log.debug("Start creating Audit Log for user {}", user.getId());
+    public void createAuditLogSynchronously(String userId, String action, String details) {
+        log.debug("Start creating Audit Log for user {}", userId);
 
         // Create the audit log with action, details, and current timestamp
         AuditLog auditLog = AuditLog.create(action, details, LocalDateTime.now());
+        auditLog.setUser(userRepository.getReferenceById(userId));
 
-        // Assign the user to the audit log
-        auditLog.setUser(user);
-
-        // Add the audit log to the user's list of audit logs (if required)
-        user.addAuditLog(auditLog);
-
-        // Log the successful creation of the audit log
-        log.info("Audit Log created successfully with ID {}", auditLog.getId());
-
-        // Save the audit log to the repository
         auditLogRepository.save(auditLog);
+        log.info("Audit Log created successfully with ID {}", auditLog.getId());
     }
 
     /**
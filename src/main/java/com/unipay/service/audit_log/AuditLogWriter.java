@@ -0,0 +1,109 @@
+package com.unipay.service.audit_log;
+
+import com.unipay.utils.AsyncBatchWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persists {@code audit_logs} rows off the request path.
+ *
+ * <p>Entries are keyed by user ID, so queuing one needs neither the {@code User} entity nor a query, and are
+ * handed to an {@link AsyncBatchWriter} that inserts them in JDBC batches. An entry queued inside a
+ * transaction is only handed over once that transaction commits: the row may reference a user created in
+ * the same transaction, and an action that was rolled back is not recorded. Tuned through
+ * {@code app.security.audit-log.*}.
+ *
+ * <p>After commit the entry is handed over without waiting and dropped if the buffer is full (counted in
+ * {@code audit.log.dropped}). Writing it on the calling thread instead would run on the finished
+ * transaction's still-bound connection and never be committed. Compliance-critical rows are written
+ * synchronously through {@link AuditLogService#createAuditLogSynchronously}.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final String INSERT_AUDIT_LOG = """
+            INSERT INTO audit_logs
+                (id, created_at, updated_at, version, is_deleted, user_id, action, details, timestamp)
+            VALUES (?, ?, ?, 0, false, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AsyncBatchWriter<AuditEntry> writer;
+
+    public AuditLogWriter(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.audit-log.capacity:10000}") int capacity,
+            @Value("${app.security.audit-log.batch-size:200}") int batchSize,
+            @Value("${app.security.audit-log.flush-interval:500}") long flushInterval,
+            @Value("${app.security.audit-log.max-block:50}") long maxBlock
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writer = new AsyncBatchWriter<>("audit.log", capacity, batchSize,
+                Duration.ofMillis(flushInterval), Duration.ofMillis(maxBlock), this::persist, meterRegistry);
+    }
+
+    /**
+     * Queues an audit row, after the current transaction commits if one is active. Outside a transaction the
+     * caller writes the row itself when the buffer stays full; after a commit it is dropped instead.
+     *
+     * @param userId  the ID of the user who performed the action
+     * @param action  the action performed
+     * @param details details of the action
+     */
+    public void submit(String userId, String action, String details) {
+        AuditEntry entry = new AuditEntry(userId, action, details, LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writer.submit(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writer.trySubmit(entry);
+            }
+        });
+    }
+
+    /**
+     * Queues an audit row without waiting and regardless of any active transaction, for events that are
+     * kept even when the action failed. The row is dropped if the buffer is full.
+     *
+     * @param userId  the ID of the user who performed the action, {@code null} if unknown
+     * @param action  the action performed
+     * @param details details of the action
+     * @return {@code true} if the row was queued
+     */
+    public boolean offer(String userId, String action, String details) {
+        return writer.trySubmit(new AuditEntry(userId, action, details, LocalDateTime.now()));
+    }
+
+    private void persist(List<AuditEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_AUDIT_LOG, entries.stream()
+                .map(entry -> {
+                    Timestamp at = Timestamp.valueOf(entry.at());
+                    return new Object[]{UUID.randomUUID().toString(), at, at,
+                            entry.userId(), entry.action(), entry.details(), at};
+                })
+                .toList());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.close();
+    }
+
+    private record AuditEntry(String userId, String action, String details, LocalDateTime at) {
+    }
+}
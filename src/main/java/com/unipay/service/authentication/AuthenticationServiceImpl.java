@@ -2,6 +2,7 @@ package com.unipay.service.authentication;
 
 
 import com.unipay.annotation.Auditable;
+import com.unipay.aspect.SecurityAuditContext;
 import com.unipay.command.LoginCommand;
 import com.unipay.command.UserRegisterCommand;
 import com.unipay.enums.AuditLogAction;
@@ -15,11 +16,15 @@ import com.unipay.repository.UserRepository;
 import com.unipay.response.LoginResponse;
 import com.unipay.security.UserDetailsServiceImpl;
 import com.unipay.service.audit_log.AuditLogService;
-import com.unipay.service.login_histroy.LoginHistoryService;
+import com.unipay.service.login_histroy.LoginAttemptRecorder;
 import com.unipay.service.mfa.MFAService;
+import com.unipay.service.mfa.MfaChallengeStore;
+import com.unipay.service.revocation.RefreshTokenStore;
 import com.unipay.service.session.UserSessionService;
+import com.unipay.service.throttle.LoginThrottle;
 import com.unipay.service.user.UserService;
 import com.unipay.utils.JwtService;
+import com.unipay.utils.VerifiedToken;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -48,9 +53,13 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final UserService userService;
     private final AuditLogService auditLogService;
     private final UserSessionService userSessionService;
-    private final LoginHistoryService loginHistoryService;
     private final AuthenticationManager authenticationManager;
     private final UserDetailsServiceImpl userDetailsService;
+    private final LoginThrottle loginThrottle;
+    private final LoginAttemptRecorder loginAttemptRecorder;
+    private final UserRepository userRepository;
+    private final RefreshTokenStore refreshTokenStore;
+    private final MfaChallengeStore mfaChallengeStore;
 
 
 
@@ -61,13 +70,16 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      * @param request The HTTP request, used to fetch session-related information.
      */
     @Override
-    @Auditable(action = "USER_REGISTRATION")
+    @Auditable(action = "USER_REGISTRATION", subject = Auditable.Subject.EMAIL_ARGUMENT)
     public void register(UserRegisterCommand command, HttpServletRequest request) {
         userService.create(command, request);
     }
 
     /**
      * Authenticates the user based on their login credentials and manages MFA flow if enabled.
+     * Attempts from an email, IP or network with too many recent failures are rejected by the
+     * {@link LoginThrottle} before the password is hashed or the database is queried. Login history
+     * and audit rows are written in the background by the {@link LoginAttemptRecorder}.
      *
      * @param command The login command containing user credentials.
      * @param request The HTTP request, used to fetch session-related information.
@@ -75,23 +87,25 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      */
     @Override
     @Transactional
-    @Auditable(action = "USER_LOGIN")
+    @Auditable(action = "USER_LOGIN", subject = Auditable.Subject.EMAIL_ARGUMENT)
     public LoginResponse login(LoginCommand command, HttpServletRequest request) {
+        loginThrottle.checkAllowed(command.getEmail(), request.getRemoteAddr());
         try {
             Authentication authentication = attemptAuthentication(command);
-            User user = getAuthenticatedUser(authentication);
-            validateUserStatus(user);
+            // The principal already carries status, MFA state and authorities; the User row is not reloaded
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            validateUserStatus(userDetails);
 
             // Handle MFA flow
-            if (user.getMfaSettings() != null && user.getMfaSettings().isEnabled()) {
-                UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            if (userDetails.isMfaRequired()) {
                 String challengeToken = jwtService.generateMfaChallengeToken(userDetails);
                 return LoginResponse.mfaRequired(challengeToken);
             }
 
-            UserSession session = createUserSession(user, request);
-            logSuccessfulLogin(user, request);
-            return createLoginResponse((UserDetailsImpl) authentication.getPrincipal(), session);
+            loginThrottle.recordSuccess(command.getEmail());
+            UserSession session = createUserSession(userRepository.getReferenceById(userDetails.getId()), request);
+            logSuccessfulLogin(userDetails.getUsername(), request);
+            return createLoginResponse(userDetails, session);
 
         } catch (DisabledException e) {
             handleAuthenticationFailure(command.getEmail(), request, "Account disabled",
@@ -112,15 +126,15 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      * @param request the HTTP request for logging purposes
      */
     @Override
-    @Auditable(action = "PASSWORD_RESET_REQUEST")
+    @Auditable(action = "PASSWORD_RESET_REQUEST", subject = Auditable.Subject.EMAIL_ARGUMENT)
     @Transactional
     public void forgotPassword(String email, HttpServletRequest request) {
         log.info("Forgot password requested for [{}]", email);
         // Delegate to UserService which handles token creation, persistence, and email dispatch
-        userService.forgotPassword(email);
+        String userId = userService.forgotPassword(email);
         // Record audit log
         auditLogService.createAuditLog(
-                userService.findByEmailWithRolesAndPermissions(email),
+                userId,
                 AuditLogAction.PASSWORD_RESET_REQUEST.getAction(),
                 "Password reset requested"
         );
@@ -135,30 +149,39 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      */
     @Override
     @Transactional
-    @Auditable(action = "MFA_VERIFICATION")
+    @Auditable(action = "MFA_VERIFICATION", subject = Auditable.Subject.VERIFIED_TOKEN)
     public LoginResponse verifyMfa(String challengeToken, String code, HttpServletRequest request) {
         try {
             // Validate challenge token format
-            if (!jwtService.isMfaChallengeToken(challengeToken)) {
+            VerifiedToken challenge = jwtService.verify(challengeToken);
+            SecurityAuditContext.attribute(challenge.subject(), challenge.userId());
+            if (!challenge.mfaChallenge()) {
                 throw new BusinessException(ExceptionPayloadFactory.INVALID_MFA_CHALLENGE.get());
             }
 
-            // Extract user from challenge token
-            String email = jwtService.extractUsername(challengeToken);
-            User user = userService.findByEmail(email);
+            // The challenge carries the user ID, so neither the user nor its MFA settings are loaded
+            String email = challenge.subject();
+            String userId = challenge.userId();
+            // Spend one of the challenge's attempts before any TOTP work or database write
+            String challengeId = challenge.challengeId();
+            if (userId == null || challengeId == null || !mfaChallengeStore.tryAttempt(challengeId)) {
+                throw new BusinessException(ExceptionPayloadFactory.INVALID_MFA_CHALLENGE.get());
+            }
 
             // Validate MFA code
-            if (!mfaService.validateCode(user, code)) {
+            if (!mfaService.validateCode(userId, code)) {
                 handleAuthenticationFailure(email, request, "Invalid MFA code",
                         ExceptionPayloadFactory.INVALID_MFA_CODE);
             }
 
             // Create session and mark MFA verified
-            UserSession session = createUserSession(user, request);
-            logSuccessfulLogin(user, request);
+            mfaChallengeStore.close(challengeId);
+            loginThrottle.recordSuccess(email);
+            UserSession session = createUserSession(userRepository.getReferenceById(userId), request);
+            logSuccessfulLogin(email, request);
 
-            UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(email);
-            userDetails.setMfaVerified(true);
+            UserDetailsImpl userDetails = ((UserDetailsImpl) userDetailsService.loadUserByUsername(email))
+                    .withMfaVerified(true);
 
             return createLoginResponse(userDetails, session);
 
@@ -168,34 +191,50 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     }
     /**
      * Refreshes the authentication token using the provided refresh token.
+     * <p>
+     * The session must still be live, which is answered by the session store's liveness check (the in-memory
+     * index with {@code app.session.store=jpa}) without loading it. Refresh tokens are single use: the token's
+     * generation is then checked against its family (the session) in the {@link RefreshTokenStore} with one
+     * keyed compare-and-advance. Presenting a token that was already used means it was replayed, so the whole
+     * session is revoked.
      *
      * @param refreshToken The refresh token provided by the client.
      * @param request The HTTP request to fetch session-related information.
      * @return A login response containing new authentication tokens.
      */
     @Override
-    @Transactional
-    @Auditable(action = "TOKEN_REFRESH")
+    @Auditable(action = "TOKEN_REFRESH", subject = Auditable.Subject.VERIFIED_TOKEN)
     public LoginResponse refreshToken(String refreshToken, HttpServletRequest request) {
         try {
             // Validate refresh token format
-            if (!jwtService.isRefreshToken(refreshToken)) {
+            VerifiedToken token = jwtService.verify(refreshToken);
+            SecurityAuditContext.attribute(token.subject(), token.userId());
+            if (!token.refresh()) {
                 throw new BusinessException(ExceptionPayloadFactory.INVALID_TOKEN.get());
             }
 
-            // Extract session ID and validate
-            String sessionId = jwtService.extractSessionId(refreshToken);
+            String sessionId = token.sessionId();
             if (!userSessionService.isSessionValid(sessionId)) {
                 throw new BusinessException(ExceptionPayloadFactory.INVALID_SESSION.get());
             }
+            RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(sessionId, token.refreshGeneration());
+            switch (rotation.outcome()) {
+                case REUSED -> {
+                    log.warn("Refresh token reuse detected for session [{}], revoking it", sessionId);
+                    userSessionService.invalidateSession(sessionId);
+                    throw new BusinessException(ExceptionPayloadFactory.INVALID_TOKEN.get());
+                }
+                case UNKNOWN -> throw new BusinessException(ExceptionPayloadFactory.INVALID_SESSION.get());
+                case ROTATED -> {
+                }
+            }
 
-            // Get user details
-            String email = jwtService.extractUsername(refreshToken);
-            UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(email);
+            // Served from the principal cache unless the user's roles or status changed
+            UserDetailsImpl userDetails = ((UserDetailsImpl) userDetailsService.loadUserByUsername(token.subject()))
+                    .withMfaVerified(token.mfaVerified());
 
-            // Generate new token pair
             return LoginResponse.success(
-                    jwtService.generateTokenPair(userDetails, sessionId),
+                    jwtService.generateTokenPair(userDetails, sessionId, rotation.generation()),
                     userDetails.getAuthorities().stream()
                             .map(GrantedAuthority::getAuthority)
                             .collect(Collectors.toList())
@@ -218,13 +257,11 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         return userService.findByEmailWithRolesAndPermissions(authentication.getName());
     }
     private UserSession createUserSession(User user, HttpServletRequest request) {
-        UserSession session = userSessionService.createSession(
+        return userSessionService.createSession(
                 user,
                 request.getHeader("User-Agent"),
                 request.getRemoteAddr()
         );
-        user.getSessions().add(session);
-        return session;
     }
     @Override
     @Transactional
@@ -232,16 +269,34 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     public void logout(HttpServletRequest request) {
         String token = extractTokenFromRequest(request);
 
-        String sessionId = jwtService.extractSessionId(token);
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verify(token);
+        } catch (JwtException e) {
+            throw new BusinessException(ExceptionPayloadFactory.INVALID_TOKEN.get());
+        }
 
-        userSessionService.invalidateSession(sessionId);
-        User user = getCurrentUser();
+        userSessionService.invalidateSession(verified.sessionId());
         auditLogService.createAuditLog(
-                user,
+                userIdOf(verified),
                 AuditLogAction.LOGOUT.getAction(),
                 "User logged out"
         );
     }
+    /**
+     * Returns the token's user ID. Tokens issued without the {@code uid} claim are resolved from their subject
+     * through the principal cache, so the audit row is still attributed to the user.
+     */
+    private String userIdOf(VerifiedToken verified) {
+        if (verified.userId() != null) {
+            return verified.userId();
+        }
+        try {
+            return ((UserDetailsImpl) userDetailsService.loadUserByUsername(verified.subject())).getId();
+        } catch (UsernameNotFoundException | BusinessException e) {
+            return null;
+        }
+    }
     private String extractTokenFromRequest(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -257,22 +312,14 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 )
         );
     }
-    private User getAuthenticatedUser(Authentication authentication) {
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return userService.findByEmail(userDetails.getUsername());
-    }
-    private void validateUserStatus(User user) {
-        if (user.getStatus() != UserStatus.ACTIVE) {
+    private void validateUserStatus(UserDetailsImpl userDetails) {
+        if (userDetails.getStatus() != UserStatus.ACTIVE) {
             throw new DisabledException("User account is not active");
         }
     }
-    private void logSuccessfulLogin(User user, HttpServletRequest request) {
-        loginHistoryService.createLoginHistory(user, request, true);
-        auditLogService.createAuditLog(
-                user,
-                AuditLogAction.LOGIN_SUCCESS.getAction(),
-                "Successful login"
-        );
+    private void logSuccessfulLogin(String email, HttpServletRequest request) {
+        loginAttemptRecorder.record(email, request, true,
+                AuditLogAction.LOGIN_SUCCESS.getAction(), "Successful login");
     }
     private LoginResponse createLoginResponse(UserDetailsImpl userDetails, UserSession session) {
         return LoginResponse.success(
@@ -284,14 +331,9 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     }
     private void handleAuthenticationFailure(String email, HttpServletRequest request,
                                              String reason, ExceptionPayloadFactory payload) {
-        userService.findByEmailWithOptional(email).ifPresent(user -> {
-            loginHistoryService.createLoginHistory(user, request, false);
-            auditLogService.createAuditLog(user,
-                    AuditLogAction.LOGIN_FAILED.getAction(),
-                    "Failed login attempt: " + reason
-            );
-
-        });
+        loginThrottle.recordFailure(email, request.getRemoteAddr());
+        loginAttemptRecorder.record(email, request, false,
+                AuditLogAction.LOGIN_FAILED.getAction(), "Failed login attempt: " + reason);
         throw new BusinessException(payload.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.unipay.service.login_histroy;
+
+import com.unipay.utils.AsyncBatchWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Records the {@code login_history} and {@code audit_logs} rows of login attempts off the request path.
+ *
+ * <p>Attempts are handed to an {@link AsyncBatchWriter} and inserted in JDBC batches, outside the login
+ * transaction. Rows are keyed by email and resolved to the user inside the insert, so recording an attempt
+ * needs neither the {@code User} entity nor a query; attempts for unknown emails insert nothing.
+ * Tuned through {@code app.security.login-events.*}.
+ */
+@Component
+public class LoginAttemptRecorder {
+
+    private static final String INSERT_LOGIN_HISTORY = """
+            INSERT INTO login_history
+                (id, created_at, updated_at, version, is_deleted, user_id, login_timestamp, ip_address, user_agent, successful)
+            SELECT ?, ?, ?, 0, false, u.id, ?, ?, ?, ?
+            FROM users u WHERE u.email = ?
+            """;
+
+    private static final String INSERT_AUDIT_LOG = """
+            INSERT INTO audit_logs
+                (id, created_at, updated_at, version, is_deleted, user_id, action, details, timestamp)
+            SELECT ?, ?, ?, 0, false, u.id, ?, ?, ?
+            FROM users u WHERE u.email = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AsyncBatchWriter<LoginAttempt> writer;
+
+    public LoginAttemptRecorder(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.login-events.capacity:10000}") int capacity,
+            @Value("${app.security.login-events.batch-size:200}") int batchSize,
+            @Value("${app.security.login-events.flush-interval:500}") long flushInterval,
+            @Value("${app.security.login-events.max-block:50}") long maxBlock
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writer = new AsyncBatchWriter<>("login.events", capacity, batchSize,
+                Duration.ofMillis(flushInterval), Duration.ofMillis(maxBlock), this::persist, meterRegistry);
+    }
+
+    /**
+     * Queues the login history and audit rows for an attempt.
+     *
+     * @param email        the email the attempt was made for
+     * @param request      the login request, for the client IP and user agent
+     * @param successful   whether the attempt succeeded
+     * @param auditAction  the audit log action
+     * @param auditDetails the audit log details
+     */
+    public void record(String email, HttpServletRequest request, boolean successful,
+                       String auditAction, String auditDetails) {
+        writer.submit(new LoginAttempt(email, request.getRemoteAddr(), request.getHeader("User-Agent"),
+                successful, auditAction, auditDetails, LocalDateTime.now()));
+    }
+
+    private void persist(List<LoginAttempt> attempts) {
+        jdbcTemplate.batchUpdate(INSERT_LOGIN_HISTORY, attempts.stream()
+                .map(attempt -> {
+                    Timestamp at = Timestamp.valueOf(attempt.at());
+                    return new Object[]{UUID.randomUUID().toString(), at, at, at,
+                            attempt.ipAddress(), attempt.userAgent(), attempt.successful(), attempt.email()};
+                })
+                .toList());
+        jdbcTemplate.batchUpdate(INSERT_AUDIT_LOG, attempts.stream()
+                .map(attempt -> {
+                    Timestamp at = Timestamp.valueOf(attempt.at());
+                    return new Object[]{UUID.randomUUID().toString(), at, at,
+                            attempt.auditAction(), attempt.auditDetails(), at, attempt.email()};
+                })
+                .toList());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.close();
+    }
+
+    private record LoginAttempt(String email,
+                                String ipAddress,
+                                String userAgent,
+                                boolean successful,
+                                String auditAction,
+                                String auditDetails,
+                                LocalDateTime at) {
+    }
+}
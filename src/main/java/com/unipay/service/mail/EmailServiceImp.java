@@ -9,10 +9,12 @@ import com.unipay.models.User;
 import com.unipay.repository.ConfirmationTokenRepository;
 import com.unipay.repository.UserRepository;
 import com.unipay.response.EmailConfirmationResponse;
+import com.unipay.security.PrincipalChangedEvent;
 import com.unipay.utils.EmailContentBuilder;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -28,6 +30,7 @@ public class EmailServiceImp implements EmailService{
     private final EmailContentBuilder emailContentBuilder;
     private final JavaMailSender mailSender;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Async
@@ -76,6 +79,8 @@ public class EmailServiceImp implements EmailService{
 
         user.setStatus(UserStatus.ACTIVE);
         userRepository.save(user);
+        // A login attempt before confirmation may have cached the pending principal
+        eventPublisher.publishEvent(PrincipalChangedEvent.of(user.getId()));
 
         log.info("Email {} verified and status set to ACTIVE.", user.getEmail());
         return new EmailConfirmationResponse(
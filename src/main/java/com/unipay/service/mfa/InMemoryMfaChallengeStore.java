@@ -0,0 +1,64 @@
+package com.unipay.service.mfa;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-JVM {@link MfaChallengeStore}: one atomic counter per open challenge in a cache that evicts it when
+ * the challenge token expires.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryMfaChallengeStore implements MfaChallengeStore {
+
+    private final Cache<String, AtomicInteger> remainingAttempts;
+    private final int maxAttempts;
+
+    public InMemoryMfaChallengeStore(
+            @Value("${jwt.mfa-challenge-expiration}") long challengeExpiration,
+            @Value("${app.security.mfa.challenge.max-attempts:5}") int maxAttempts
+    ) {
+        this.maxAttempts = maxAttempts;
+        this.remainingAttempts = CacheBuilder.newBuilder()
+                .expireAfterWrite(challengeExpiration, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void open(String challengeId) {
+        remainingAttempts.put(challengeId, new AtomicInteger(maxAttempts));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryAttempt(String challengeId) {
+        AtomicInteger remaining = remainingAttempts.getIfPresent(challengeId);
+        if (remaining == null) {
+            return false;
+        }
+        if (remaining.decrementAndGet() < 0) {
+            remainingAttempts.invalidate(challengeId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close(String challengeId) {
+        remainingAttempts.invalidate(challengeId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.unipay.service.mfa;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-JVM {@link TotpReplayGuard}: one boxed step per user that verified a code within the last few minutes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTotpReplayGuard implements TotpReplayGuard {
+
+    /** Fixed retention, comfortably longer than the 90-second verification window. */
+    private static final long RETENTION_MINUTES = 5;
+
+    private final Cache<String, Long> lastUsedSteps = CacheBuilder.newBuilder()
+            .expireAfterWrite(RETENTION_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean markUsed(String userId, long step, long retention) {
+        boolean[] accepted = {false};
+        lastUsedSteps.asMap().compute(userId, (id, last) -> {
+            if (last != null && step <= last) {
+                return last;
+            }
+            accepted[0] = true;
+            return step;
+        });
+        return accepted[0];
+    }
+}
@@ -3,8 +3,8 @@ package com.unipay.service.mfa;
 import com.unipay.exception.QrGenerationException;
 import com.unipay.models.User;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -28,21 +28,21 @@ public interface MFAService {
     void disableMfa(User user);
 
     /**
-     * Generates a QR code image for the user's MFA setup.
+     * Returns the user's MFA setup QR code as a PNG, cached until the secret changes.
      *
      * @param user the user for whom the QR code is generated
-     * @return a BufferedImage of the QR code
+     * @return the PNG bytes
      */
-    BufferedImage generateQrCodeImage(User user) throws QrGenerationException;
+    byte[] getQrCodePng(User user) throws QrGenerationException;
 
     /**
-     * Converts the provided BufferedImage to a byte array.
+     * Writes the user's MFA setup QR code as an SVG document to the given stream.
      *
-     * @param image the image to convert
-     * @return the byte array representation of the image
-     * @throws IOException if an I/O error occurs during image processing
+     * @param user the user for whom the QR code is generated
+     * @param out  the stream to write to, left open
+     * @throws IOException if writing to the stream fails
      */
-    byte[] getImageData(BufferedImage image) throws IOException;
+    void writeQrCodeSvg(User user, OutputStream out) throws QrGenerationException, IOException;
 
     /**
      * Generates new MFA recovery codes for the user.
@@ -69,6 +69,15 @@ public interface MFAService {
      */
     boolean validateCode(User user, String code);
 
+    /**
+     * Validates and consumes a TOTP code for the user with the given ID, reading only their secret.
+     *
+     * @param userId the ID of the user
+     * @param code   the code to validate
+     * @return true if the code is valid and was not used before, false otherwise
+     */
+    boolean validateCode(String userId, String code);
+
     /**
      * Validates a recovery code provided by the user.
      *
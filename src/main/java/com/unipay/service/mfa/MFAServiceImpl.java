@@ -1,34 +1,26 @@
 package com.unipay.service.mfa;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import com.unipay.exception.BusinessException;
 import com.unipay.exception.ExceptionPayloadFactory;
 import com.unipay.exception.QrGenerationException;
 import com.unipay.models.MFASettings;
+import com.unipay.models.RecoveryCode;
 import com.unipay.models.User;
+import com.unipay.repository.RecoveryCodeRepository;
 import com.unipay.repository.UserRepository;
+import com.unipay.security.PrincipalChangedEvent;
 import dev.samstevens.totp.code.*;
 import dev.samstevens.totp.qr.QrData;
 import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
-import dev.samstevens.totp.time.SystemTimeProvider;
-import dev.samstevens.totp.time.TimeProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Base32;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.security.SecureRandom;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -46,11 +38,12 @@ import static com.unipay.constants.Constants.*;
 public class MFAServiceImpl implements MFAService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final RecoveryCodeRepository recoveryCodeRepository;
+    private final RecoveryCodeHasher recoveryCodeHasher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TotpVerifier totpVerifier;
+    private final QrCodeRenderer qrCodeRenderer;
     private final SecretGenerator secretGenerator = new DefaultSecretGenerator();
-    private final TimeProvider timeProvider = new SystemTimeProvider();
-    private final CodeGenerator codeGenerator = new DefaultCodeGenerator();
-    private final CodeVerifier verifier = new DefaultCodeVerifier(codeGenerator, timeProvider);
     private final SecureRandom secureRandom = new SecureRandom();
 
 
@@ -67,11 +60,13 @@ public class MFAServiceImpl implements MFAService {
         if (user.getMfaSettings() == null) {
             throw new BusinessException(ExceptionPayloadFactory.MFA_NOT_SET_UP.get());
         }
-        if (!validateCode(user, code)) {
+        // Not validateCode: it requires MFA to be enabled already
+        if (!totpVerifier.verify(user.getId(), user.getMfaSettings().getSecret(), code)) {
             throw new BusinessException(ExceptionPayloadFactory.INVALID_MFA_CODE.get());
         }
         user.getMfaSettings().setEnabled(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(PrincipalChangedEvent.of(user.getId()));
     }
 
     /**
@@ -84,53 +79,54 @@ public class MFAServiceImpl implements MFAService {
     public void disableMfa(User user) {
         user.setMfaSettings(null);
         userRepository.save(user);
+        recoveryCodeRepository.deleteAllByUserId(user.getId());
+        totpVerifier.invalidate(user.getId());
+        // The cached QR code embeds the secret just discarded
+        qrCodeRenderer.invalidate(user.getId());
+        eventPublisher.publishEvent(PrincipalChangedEvent.of(user.getId()));
     }
 
     /**
-     * Generates a QR code image to be scanned by an authenticator app.
+     * Returns the QR code as PNG bytes, rendered once per secret and then served from the {@link QrCodeRenderer}.
      *
      * @param user The user for whom the QR code is generated.
-     * @return A BufferedImage containing the QR code.
+     * @return The PNG image.
      * @throws QrGenerationException If the QR code generation fails.
      */
     @Override
-    public BufferedImage generateQrCodeImage(User user) throws QrGenerationException {
+    public byte[] getQrCodePng(User user) throws QrGenerationException {
+        return qrCodeRenderer.png(user.getId(), otpAuthUri(user));
+    }
+
+    /**
+     * Writes the QR code as SVG directly from the QR module matrix, without rasterising it.
+     *
+     * @param user The user for whom the QR code is generated.
+     * @param out  The stream to write to; it is not closed.
+     * @throws QrGenerationException If the QR code generation fails.
+     * @throws IOException           If writing to the stream fails.
+     */
+    @Override
+    public void writeQrCodeSvg(User user, OutputStream out) throws QrGenerationException, IOException {
+        qrCodeRenderer.writeSvg(user.getId(), otpAuthUri(user), out);
+    }
+
+    private String otpAuthUri(User user) {
         String secret = getOrGenerateSecret(user);
-        QrData data = new QrData.Builder()
+        return new QrData.Builder()
                 .label(user.getEmail())
                 .secret(secret)
                 .issuer("UniPay")
                 .algorithm(HashingAlgorithm.SHA1)
                 .digits(6)
                 .period(30)
-                .build();
-
-        try {
-            BitMatrix bitMatrix = new QRCodeWriter().encode(data.getUri(), BarcodeFormat.QR_CODE, QR_IMAGE_SIZE, QR_IMAGE_SIZE);
-            return MatrixToImageWriter.toBufferedImage(bitMatrix);
-        } catch (WriterException e) {
-            throw new QrGenerationException("Failed to generate QR code", e);
-        }
-    }
-
-    /**
-     * Converts a BufferedImage (e.g., QR code) to a byte array in PNG format.
-     *
-     * @param image The image to convert.
-     * @return A byte array representing the PNG image.
-     * @throws IOException If an error occurs during image writing.
-     */
-    @Override
-    public byte[] getImageData(BufferedImage image) throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            ImageIO.write(image, "png", baos);
-            return baos.toByteArray();
-        }
+                .build()
+                .getUri();
     }
 
     /**
-     * Generates a list of new MFA recovery codes for the user.
-     * These are hashed and stored securely.
+     * Generates a list of new MFA recovery codes for the user, replacing any previous ones.
+     * Only keyed digests of the codes are stored.
      *
      * @param user The user to generate codes for.
      * @return A list of plaintext recovery codes.
@@ -141,16 +137,17 @@ public class MFAServiceImpl implements MFAService {
     public List<String> generateRecoveryCodes(User user) {
         ensureMfaEnabled(user);
 
-        List<String> codes = secureRandom.ints(RECOVERY_CODE_COUNT, 100000, 999999)
+        // Duplicates would share one digest row, leaving the user fewer usable codes than shown
+        List<String> codes = secureRandom.ints(100_000, 1_000_000)
+                .distinct()
+                .limit(RECOVERY_CODE_COUNT)
                 .mapToObj(i -> String.format("%0" + RECOVERY_CODE_LENGTH + "d", i))
                 .collect(Collectors.toList());
 
-        List<String> hashedCodes = codes.stream()
-                .map(this::hashCode)
-                .collect(Collectors.toList());
-
-        user.getMfaSettings().setRecoveryCodes(hashedCodes);
-        userRepository.save(user);
+        recoveryCodeRepository.deleteAllByUserId(user.getId());
+        recoveryCodeRepository.saveAll(codes.stream()
+                .map(code -> RecoveryCode.create(user, recoveryCodeHasher.digest(user.getId(), code)))
+                .collect(Collectors.toList()));
         return codes;
     }
 
@@ -165,7 +162,7 @@ public class MFAServiceImpl implements MFAService {
     @Transactional(readOnly = true)
     public int getRemainingRecoveryCodes(User user) {
         ensureMfaEnabled(user);
-        return user.getMfaSettings().getRecoveryCodes().size();
+        return (int) recoveryCodeRepository.countByUser_Id(user.getId());
     }
 
     /**
@@ -180,12 +177,28 @@ public class MFAServiceImpl implements MFAService {
     @Transactional
     public boolean validateCode(User user, String code) {
         ensureMfaEnabled(user);
-        return verifier.isValidCode(user.getMfaSettings().getSecret(), code);
+        return totpVerifier.verify(user.getId(), user.getMfaSettings().getSecret(), code);
+    }
+
+    /**
+     * Validates a TOTP code for a user identified only by ID, reading just the secret rather than the user
+     * and its settings. A code is accepted at most once.
+     *
+     * @param userId The ID of the user.
+     * @param code   The code to validate.
+     * @return True if valid and not used before, false otherwise.
+     * @throws BusinessException If MFA is not enabled.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public boolean validateCode(String userId, String code) {
+        String secret = userRepository.findEnabledMfaSecret(userId)
+                .orElseThrow(() -> new BusinessException(ExceptionPayloadFactory.MFA_NOT_ENABLED.get()));
+        return totpVerifier.verify(userId, secret, code);
     }
 
     /**
-     * Validates and consumes a recovery code.
-     * If matched, the code is removed from storage.
+     * Validates and consumes a recovery code with a single indexed delete of its digest.
      *
      * @param user The user using the recovery code.
      * @param code The code provided by the user.
@@ -195,17 +208,9 @@ public class MFAServiceImpl implements MFAService {
     @Transactional
     public boolean validateRecoveryCode(User user, String code) {
         MFASettings settings = user.getMfaSettings();
-        if (settings == null || settings.getRecoveryCodes().isEmpty()) return false;
-
-        List<String> codes = settings.getRecoveryCodes();
-        for (int i = 0; i < codes.size(); i++) {
-            if (passwordEncoder.matches(code, codes.get(i))) {
-                codes.remove(i);
-                userRepository.save(user);
-                return true;
-            }
-        }
-        return false;
+        if (settings == null || !settings.isEnabled() || code == null) return false;
+
+        return recoveryCodeRepository.consume(user.getId(), recoveryCodeHasher.digest(user.getId(), code)) == 1;
     }
 
     /**
@@ -220,6 +225,8 @@ public class MFAServiceImpl implements MFAService {
             String secret = secretGenerator.generate();
             user.setMfaSettings(MFASettings.create(false, secret, user));
             userRepository.save(user);
+            totpVerifier.invalidate(user.getId());
+            qrCodeRenderer.invalidate(user.getId());
             return secret;
         }
         return settings.getSecret();
@@ -237,15 +244,4 @@ public class MFAServiceImpl implements MFAService {
             throw new BusinessException(ExceptionPayloadFactory.MFA_NOT_ENABLED.get());
         }
     }
-
-    /**
-     * Hashes a recovery code using Base32 encoding.
-     *
-     * @param code The code to hash.
-     * @return The Base32-encoded string.
-     */
-    private String hashCode(String code) {
-        Base32 base32 = new Base32();
-        return base32.encodeToString(code.getBytes(StandardCharsets.UTF_8));
-    }
 }
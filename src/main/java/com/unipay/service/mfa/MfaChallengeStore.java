@@ -0,0 +1,38 @@
+package com.unipay.service.mfa;
+
+/**
+ * Server-side state of pending MFA challenges: the number of codes a client may still try against each one.
+ *
+ * <p>A challenge is opened when the password step succeeds, with {@code app.security.mfa.challenge.max-attempts}
+ * attempts, and expires with its challenge token. Each verification attempt takes one attempt atomically
+ * before any code is checked; once they are used up, or the challenge has been completed, further attempts are
+ * rejected without TOTP work or database writes.
+ *
+ * <p>The implementation is selected with {@code app.security.store}: {@code memory} (default, single node)
+ * or {@code redis} (shared by every node of the cluster).
+ */
+public interface MfaChallengeStore {
+
+    /**
+     * Opens a challenge with the full attempt budget.
+     *
+     * @param challengeId the challenge ID carried by the challenge token
+     */
+    void open(String challengeId);
+
+    /**
+     * Atomically takes one attempt from the challenge.
+     *
+     * @param challengeId the challenge ID
+     * @return {@code true} if an attempt was available, {@code false} if the challenge is unknown, expired,
+     *         completed or out of attempts
+     */
+    boolean tryAttempt(String challengeId);
+
+    /**
+     * Closes a completed challenge so its token cannot be used again.
+     *
+     * @param challengeId the challenge ID
+     */
+    void close(String challengeId);
+}
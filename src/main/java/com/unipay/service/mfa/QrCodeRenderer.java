@@ -0,0 +1,158 @@
+package com.unipay.service.mfa;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.unipay.exception.QrGenerationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.unipay.constants.Constants.QR_IMAGE_SIZE;
+
+/**
+ * Renders MFA enrolment QR codes, caching the result per user.
+ *
+ * <p>An entry holds the otpauth URI it was rendered from, so it is only reused while the user's secret and
+ * label are unchanged; {@link #invalidate(String)} also drops it eagerly when the secret changes. The QR
+ * module matrix is encoded once per entry. The PNG is rasterised on first request and then served from
+ * memory. The SVG is written straight from the module matrix to the response, one path segment per run
+ * of dark modules, so it never touches AWT.
+ *
+ * <p>Entries contain the TOTP secret, so they are kept only briefly ({@code app.security.mfa.qr-cache.*}),
+ * long enough to cover enrolment.
+ */
+@Component
+public class QrCodeRenderer {
+
+    private final Cache<String, RenderedQrCode> rendered;
+
+    public QrCodeRenderer(
+            @Value("${app.security.mfa.qr-cache.maximum-size:1000}") long maximumSize,
+            @Value("${app.security.mfa.qr-cache.ttl:600000}") long ttl
+    ) {
+        this.rendered = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @param userId the user ID, the cache key
+     * @param uri    the otpauth URI to encode
+     * @return the QR code as a PNG of {@code QR_IMAGE_SIZE} pixels
+     */
+    public byte[] png(String userId, String uri) throws QrGenerationException {
+        return renderedFor(userId, uri).png();
+    }
+
+    /**
+     * Writes the QR code as an SVG document to {@code out}, which is not closed.
+     *
+     * @param userId the user ID, the cache key
+     * @param uri    the otpauth URI to encode
+     * @param out    the stream to write to
+     */
+    public void writeSvg(String userId, String uri, OutputStream out) throws QrGenerationException, IOException {
+        BitMatrix modules = renderedFor(userId, uri).modules();
+        int width = modules.getWidth();
+        int height = modules.getHeight();
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + QR_IMAGE_SIZE + "\" height=\"" + QR_IMAGE_SIZE
+                + "\" viewBox=\"0 0 " + width + " " + height + "\" shape-rendering=\"crispEdges\">");
+        writer.write("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && modules.get(x, y)) {
+                    x++;
+                }
+                writer.write("M" + start + " " + y + "h" + (x - start) + "v1h-" + (x - start) + "z");
+            }
+        }
+        writer.write("\"/></svg>");
+        writer.flush();
+    }
+
+    /**
+     * Drops the cached rendering of a user whose secret changed or was removed.
+     *
+     * @param userId the user ID
+     */
+    public void invalidate(String userId) {
+        rendered.invalidate(userId);
+    }
+
+    private RenderedQrCode renderedFor(String userId, String uri) throws QrGenerationException {
+        RenderedQrCode cached = rendered.getIfPresent(userId);
+        if (cached != null && cached.uri().equals(uri)) {
+            return cached;
+        }
+        try {
+            // Width and height 0 give one pixel per module plus the quiet zone
+            RenderedQrCode fresh = new RenderedQrCode(uri, new QRCodeWriter().encode(uri, BarcodeFormat.QR_CODE, 0, 0));
+            rendered.put(userId, fresh);
+            return fresh;
+        } catch (WriterException e) {
+            throw new QrGenerationException("Failed to generate QR code", e);
+        }
+    }
+
+    private static final class RenderedQrCode {
+
+        private final String uri;
+        private final BitMatrix modules;
+        private volatile byte[] png;
+
+        RenderedQrCode(String uri, BitMatrix modules) {
+            this.uri = uri;
+            this.modules = modules;
+        }
+
+        String uri() {
+            return uri;
+        }
+
+        BitMatrix modules() {
+            return modules;
+        }
+
+        byte[] png() throws QrGenerationException {
+            byte[] image = png;
+            if (image == null) {
+                // Racing requests may both rasterise; either result is identical
+                image = rasterise();
+                png = image;
+            }
+            return image;
+        }
+
+        private byte[] rasterise() throws QrGenerationException {
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                BitMatrix scaled = new QRCodeWriter().encode(uri, BarcodeFormat.QR_CODE, QR_IMAGE_SIZE, QR_IMAGE_SIZE);
+                MatrixToImageWriter.writeToStream(scaled, "PNG", out);
+                return out.toByteArray();
+            } catch (WriterException e) {
+                throw new QrGenerationException("Failed to generate QR code", e);
+            } catch (IOException e) {
+                throw new QrGenerationException("Failed to encode QR code", e);
+            }
+        }
+    }
+}
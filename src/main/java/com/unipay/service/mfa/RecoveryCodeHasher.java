@@ -0,0 +1,69 @@
+package com.unipay.service.mfa;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Computes the stored digest of a recovery code: HMAC-SHA256 keyed with
+ * {@code app.security.mfa.recovery-code-key} over the user ID and the code.
+ *
+ * <p>The digest is deterministic, so verifying a code is an index lookup instead of a scan with a slow hash
+ * per stored code. Recovery codes are short, but without the key their digests cannot be brute forced
+ * offline. The index compares digests the caller cannot choose, so lookup timing reveals nothing about
+ * the stored values.
+ */
+@Component
+public class RecoveryCodeHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * @param key the base64 HMAC key
+     * @throws IllegalStateException if the key is unset or shorter than 256 bits, failing startup rather than
+     *                               storing digests under a missing or well-known key
+     */
+    public RecoveryCodeHasher(@Value("${app.security.mfa.recovery-code-key:}") String key) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalStateException("app.security.mfa.recovery-code-key (MFA_RECOVERY_CODE_KEY) must be set");
+        }
+        byte[] decoded = Base64.getDecoder().decode(key.trim());
+        if (decoded.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("app.security.mfa.recovery-code-key must be at least "
+                    + MIN_KEY_BYTES * 8 + " bits");
+        }
+        this.key = new SecretKeySpec(decoded, ALGORITHM);
+    }
+
+    /**
+     * @param userId the owner of the code
+     * @param code   the plaintext code
+     * @return the base64url digest to store or look up
+     */
+    public String digest(String userId, String code) {
+        Mac mac = macs.get();
+        mac.update(userId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        byte[] digest = mac.doFinal(code.trim().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.unipay.service.mfa;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster-wide {@link MfaChallengeStore}. Each open challenge is a counter
+ * ({@code unipay:mfa-challenge:{challengeId}}) that expires with the challenge token; an attempt is a
+ * scripted decrement that never recreates a missing key, so attempts on any node share one budget.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "redis")
+public class RedisMfaChallengeStore implements MfaChallengeStore {
+
+    static final String KEY_PREFIX = "unipay:mfa-challenge:";
+
+    /**
+     * Returns the attempts left after this one, or {@code -1} if the challenge is missing or exhausted.
+     */
+    private static final RedisScript<Long> TRY_ATTEMPT = new DefaultRedisScript<>("""
+            local remaining = redis.call('GET', KEYS[1])
+            if not remaining or tonumber(remaining) <= 0 then
+                redis.call('DEL', KEYS[1])
+                return -1
+            end
+            return redis.call('DECR', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public RedisMfaChallengeStore(
+            StringRedisTemplate redisTemplate,
+            @Value("${jwt.mfa-challenge-expiration}") long challengeExpiration,
+            @Value("${app.security.mfa.challenge.max-attempts:5}") int maxAttempts
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(challengeExpiration);
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void open(String challengeId) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + challengeId, Integer.toString(maxAttempts), ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryAttempt(String challengeId) {
+        Long remaining = redisTemplate.execute(TRY_ATTEMPT, List.of(KEY_PREFIX + challengeId));
+        return remaining != null && remaining >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close(String challengeId) {
+        redisTemplate.delete(KEY_PREFIX + challengeId);
+    }
+}
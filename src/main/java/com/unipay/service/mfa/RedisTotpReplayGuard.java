@@ -0,0 +1,46 @@
+package com.unipay.service.mfa;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Cluster-wide {@link TotpReplayGuard}. The last used step of a user is one key
+ * ({@code unipay:totp-step:{userId}}) advanced by a server-side script, so two nodes cannot both accept
+ * the same code.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "redis")
+public class RedisTotpReplayGuard implements TotpReplayGuard {
+
+    static final String KEY_PREFIX = "unipay:totp-step:";
+
+    private static final RedisScript<Long> MARK_USED = new DefaultRedisScript<>("""
+            local last = redis.call('GET', KEYS[1])
+            if last and tonumber(ARGV[1]) <= tonumber(last) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisTotpReplayGuard(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean markUsed(String userId, long step, long retention) {
+        Long accepted = redisTemplate.execute(MARK_USED, List.of(KEY_PREFIX + userId),
+                Long.toString(step), Long.toString(retention));
+        return accepted != null && accepted == 1L;
+    }
+}
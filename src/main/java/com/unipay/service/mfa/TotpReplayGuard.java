@@ -0,0 +1,21 @@
+package com.unipay.service.mfa;
+
+/**
+ * Remembers, per user, the last TOTP time step a code was accepted for, so that a code cannot be used twice
+ * and an older code cannot be used after a newer one. Entries only need to outlive the verification window.
+ *
+ * <p>The implementation is selected with {@code app.security.store}: {@code memory} (default, single node)
+ * or {@code redis} (shared by every node of the cluster).
+ */
+public interface TotpReplayGuard {
+
+    /**
+     * Atomically records {@code step} as used if it is later than the last step used by the user.
+     *
+     * @param userId    the user ID
+     * @param step      the time step the presented code matched
+     * @param retention how long the record must be kept, in milliseconds
+     * @return {@code true} if the step was recorded, {@code false} if it is a replay
+     */
+    boolean markUsed(String userId, long step, long retention);
+}
@@ -0,0 +1,127 @@
+package com.unipay.service.mfa;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.binary.Base32;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RFC 6238 TOTP verification (HMAC-SHA1, 6 digits, 30-second steps, one step of clock drift either way),
+ * matching what {@link MFAServiceImpl} provisions in the QR code.
+ *
+ * <p>Decoded HMAC keys are cached per user together with the Base32 secret they were decoded from, so a
+ * changed secret is never verified against a stale key; {@link #invalidate(String)} drops an entry eagerly.
+ * {@code Mac} instances are reused per thread. Every step in the window is checked so the time taken does
+ * not reveal which one matched, and an accepted step is recorded in the {@link TotpReplayGuard}, which
+ * rejects any later use of that code or of an older one.
+ */
+@Component
+public class TotpVerifier {
+
+    private static final String ALGORITHM = "HmacSHA1";
+    private static final int DIGITS = 6;
+    private static final int MODULUS = 1_000_000;
+    private static final long PERIOD_SECONDS = 30;
+    private static final int ALLOWED_DRIFT = 1;
+    private static final long REPLAY_RETENTION_MILLIS = TimeUnit.SECONDS.toMillis(PERIOD_SECONDS * (2 * ALLOWED_DRIFT + 1));
+
+    private final TotpReplayGuard replayGuard;
+    private final Cache<String, DecodedSecret> keys;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(TotpVerifier::newMac);
+
+    public TotpVerifier(TotpReplayGuard replayGuard,
+                        @Value("${app.security.mfa.key-cache.maximum-size:10000}") long maximumSize) {
+        this.replayGuard = replayGuard;
+        this.keys = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * Verifies a code and consumes it.
+     *
+     * @param userId the user ID
+     * @param secret the user's Base32 TOTP secret
+     * @param code   the code entered by the user
+     * @return {@code true} if the code is valid for the current window and has not been used before
+     */
+    public boolean verify(String userId, String secret, String code) {
+        if (code == null || code.length() != DIGITS || !code.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        byte[] presented = code.getBytes(StandardCharsets.US_ASCII);
+        SecretKeySpec key = keyFor(userId, secret);
+        long currentStep = System.currentTimeMillis() / 1000 / PERIOD_SECONDS;
+        long matchedStep = -1;
+        for (long step = currentStep - ALLOWED_DRIFT; step <= currentStep + ALLOWED_DRIFT; step++) {
+            if (MessageDigest.isEqual(presented, codeAt(key, step)) && matchedStep < 0) {
+                matchedStep = step;
+            }
+        }
+        return matchedStep >= 0 && replayGuard.markUsed(userId, matchedStep, REPLAY_RETENTION_MILLIS);
+    }
+
+    /**
+     * Drops the cached key of a user whose secret changed or was removed.
+     *
+     * @param userId the user ID
+     */
+    public void invalidate(String userId) {
+        keys.invalidate(userId);
+    }
+
+    private SecretKeySpec keyFor(String userId, String secret) {
+        DecodedSecret cached = keys.getIfPresent(userId);
+        if (cached == null || !cached.secret().equals(secret)) {
+            cached = new DecodedSecret(secret, new SecretKeySpec(new Base32().decode(secret), ALGORITHM));
+            keys.put(userId, cached);
+        }
+        return cached.key();
+    }
+
+    private byte[] codeAt(SecretKeySpec key, long step) {
+        Mac mac = macs.get();
+        try {
+            mac.init(key);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("Invalid TOTP key", e);
+        }
+        byte[] hash = mac.doFinal(new byte[]{
+                (byte) (step >>> 56), (byte) (step >>> 48), (byte) (step >>> 40), (byte) (step >>> 32),
+                (byte) (step >>> 24), (byte) (step >>> 16), (byte) (step >>> 8), (byte) step
+        });
+        int offset = hash[hash.length - 1] & 0x0F;
+        int binary = (hash[offset] & 0x7F) << 24
+                | (hash[offset + 1] & 0xFF) << 16
+                | (hash[offset + 2] & 0xFF) << 8
+                | (hash[offset + 3] & 0xFF);
+        int otp = binary % MODULUS;
+        byte[] digits = new byte[DIGITS];
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            digits[i] = (byte) ('0' + otp % 10);
+            otp /= 10;
+        }
+        return digits;
+    }
+
+    private static Mac newMac() {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private record DecodedSecret(String secret, SecretKeySpec key) {
+    }
+}
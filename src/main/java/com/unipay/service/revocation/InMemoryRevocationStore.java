@@ -0,0 +1,60 @@
+package com.unipay.service.revocation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-JVM {@link RevocationStore}, used for single-node deployments and as the Redis stand-in in tests.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRevocationStore implements RevocationStore {
+
+    private final Cache<String, Boolean> revoked;
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    public InMemoryRevocationStore(@Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration) {
+        this.revoked = CacheBuilder.newBuilder()
+                .expireAfterWrite(refreshTokenExpiration, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void revoke(String id) {
+        revoked.put(id, Boolean.TRUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRevoked(String id) {
+        return revoked.getIfPresent(id) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long advanceEpoch(String userId) {
+        return epochs.merge(userId, 1L, Long::sum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long currentEpoch(String userId) {
+        return epochs.getOrDefault(userId, 0L);
+    }
+}
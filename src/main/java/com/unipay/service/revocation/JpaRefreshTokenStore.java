@@ -0,0 +1,57 @@
+package com.unipay.service.revocation;
+
+import com.unipay.repository.UserSessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link RefreshTokenStore} for {@code app.session.store=jpa}. A family's generation is the
+ * {@code refresh_generation} column of its {@code user_sessions} row, so it is shared by every node and
+ * lives and dies with the session. A rotation is one conditional {@code UPDATE} on the primary key.
+ */
+@Service
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final UserSessionRepository sessionRepository;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nothing to do: the session row is created at generation {@code 0}.
+     */
+    @Override
+    public void startFamily(String familyId) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only when the update matches no row is the current generation read, to tell a replay, which ends the
+     * family, from a revoked or missing session.
+     */
+    @Override
+    @Transactional
+    public Rotation rotate(String familyId, long generation) {
+        if (sessionRepository.advanceRefreshGeneration(familyId, generation) == 1) {
+            return Rotation.rotated(generation + 1);
+        }
+        if (sessionRepository.findRefreshGeneration(familyId).isEmpty()) {
+            return Rotation.UNKNOWN;
+        }
+        sessionRepository.endRefreshFamily(familyId);
+        return Rotation.REUSED;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void revokeFamily(String familyId) {
+        sessionRepository.endRefreshFamily(familyId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.unipay.service.revocation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link RefreshTokenStore} for {@code app.session.store=redis}, kept next to the sessions. Each family is one
+ * integer key ({@code unipay:refresh-family:{familyId}}) with a TTL of the refresh-token lifetime, and a rotation
+ * is a single server-side script, so the compare-and-advance is atomic across nodes and costs one round trip.
+ */
+@Service
+@ConditionalOnProperty(name = "app.session.store", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    static final String KEY_PREFIX = "unipay:refresh-family:";
+
+    /**
+     * Returns the new generation, {@code -1} if the family does not exist or {@code -2} if the presented
+     * generation is stale, in which case the family is deleted.
+     */
+    private static final RedisScript<Long> ROTATE = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if not current then
+                return -1
+            end
+            if current ~= ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                return -2
+            end
+            local next = tonumber(current) + 1
+            redis.call('SET', KEYS[1], next, 'PX', ARGV[2])
+            return next
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public RedisRefreshTokenStore(
+            StringRedisTemplate redisTemplate,
+            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(refreshTokenExpiration);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startFamily(String familyId) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + familyId, "0", ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rotation rotate(String familyId, long generation) {
+        Long result = redisTemplate.execute(ROTATE, List.of(KEY_PREFIX + familyId),
+                Long.toString(generation), Long.toString(ttl.toMillis()));
+        if (result == null || result == -1) {
+            return Rotation.UNKNOWN;
+        }
+        return result == -2 ? Rotation.REUSED : Rotation.rotated(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void revokeFamily(String familyId) {
+        redisTemplate.delete(KEY_PREFIX + familyId);
+    }
+}
@@ -0,0 +1,218 @@
+package com.unipay.service.revocation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide {@link RevocationStore} backed by Redis.
+ *
+ * <p>A revocation is written as a key with a TTL of the refresh-token lifetime and announced on a
+ * pub/sub channel, so every node records it locally. Each node keeps a Bloom filter of every known
+ * revocation plus a near-cache of confirmed ones: the common "not revoked" answer comes from the
+ * Bloom filter without a network hop, and Redis is only asked when the filter reports a possible match.
+ *
+ * <p>Bloom filters cannot forget, so the filter is rebuilt from the live Redis keys on
+ * {@code app.security.revocation.rebuild-interval}, which also catches anything missed while a node
+ * was disconnected from the channel.
+ *
+ * <p>Session epochs are counters ({@code unipay:session-epoch:{userId}}, no TTL) advanced with {@code INCR}
+ * and announced on their own channel. The Bloom filter also tracks which users have an epoch at all, so
+ * for the vast majority of users, who never had every session revoked, the lookup is local and returns 0.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "redis")
+public class RedisRevocationStore implements RevocationStore, MessageListener {
+
+    static final String KEY_PREFIX = "unipay:revoked:";
+    static final ChannelTopic CHANNEL = new ChannelTopic("unipay:revocations");
+    static final String EPOCH_KEY_PREFIX = "unipay:session-epoch:";
+    static final ChannelTopic EPOCH_CHANNEL = new ChannelTopic("unipay:session-epochs");
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Duration ttl;
+    private final long expectedRevocations;
+    private final Cache<String, Boolean> nearCache;
+    private final Cache<String, Long> epochs;
+    private volatile BloomFilter<CharSequence> bloomFilter;
+
+    public RedisRevocationStore(
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration,
+            @Value("${app.security.revocation.expected-revocations:100000}") long expectedRevocations
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.ttl = Duration.ofMillis(refreshTokenExpiration);
+        this.expectedRevocations = expectedRevocations;
+        this.nearCache = CacheBuilder.newBuilder()
+                .maximumSize(expectedRevocations)
+                .expireAfterWrite(refreshTokenExpiration, TimeUnit.MILLISECONDS)
+                .build();
+        this.epochs = CacheBuilder.newBuilder()
+                .maximumSize(expectedRevocations)
+                .build();
+        this.bloomFilter = newBloomFilter();
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, List.of(CHANNEL, EPOCH_CHANNEL));
+        rebuildBloomFilter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void revoke(String id) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + id, "1", ttl);
+        remember(id);
+        redisTemplate.convertAndSend(CHANNEL.getTopic(), id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRevoked(String id) {
+        if (nearCache.getIfPresent(id) != null) {
+            return true;
+        }
+        if (!bloomFilter.mightContain(id)) {
+            return false;
+        }
+        try {
+            boolean revoked = Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + id));
+            if (revoked) {
+                nearCache.put(id, Boolean.TRUE);
+            }
+            return revoked;
+        } catch (RuntimeException e) {
+            // Sessions are still checked against their own store, so a Redis outage must not lock everyone out
+            log.warn("Revocation lookup failed for {}, treating as not revoked", id, e);
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Unlike {@link #isRevoked(String)} this does not fail open: a failed {@code INCR} propagates to the caller.
+     */
+    @Override
+    public long advanceEpoch(String userId) {
+        Long epoch = redisTemplate.opsForValue().increment(EPOCH_KEY_PREFIX + userId);
+        long advanced = epoch == null ? 0L : epoch;
+        rememberEpoch(userId, advanced);
+        redisTemplate.convertAndSend(EPOCH_CHANNEL.getTopic(), userId + ":" + advanced);
+        return advanced;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long currentEpoch(String userId) {
+        Long cached = epochs.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        if (!bloomFilter.mightContain(EPOCH_KEY_PREFIX + userId)) {
+            return 0L;
+        }
+        try {
+            String value = redisTemplate.opsForValue().get(EPOCH_KEY_PREFIX + userId);
+            if (value == null) {
+                return 0L;
+            }
+            long epoch = Long.parseLong(value);
+            rememberEpoch(userId, epoch);
+            return epoch;
+        } catch (RuntimeException e) {
+            log.warn("Session epoch lookup failed for {}, treating as 0", userId, e);
+            return 0L;
+        }
+    }
+
+    /**
+     * Records revocations and session epochs published by other nodes.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (EPOCH_CHANNEL.getTopic().equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+            int separator = body.lastIndexOf(':');
+            rememberEpoch(body.substring(0, separator), Long.parseLong(body.substring(separator + 1)));
+        } else {
+            remember(body);
+        }
+    }
+
+    /**
+     * Replaces the Bloom filter with one holding only the revocations that are still live in Redis
+     * and the users that have a session epoch.
+     */
+    @Scheduled(
+            initialDelayString = "${app.security.revocation.rebuild-interval:3600000}",
+            fixedDelayString = "${app.security.revocation.rebuild-interval:3600000}"
+    )
+    public void rebuildBloomFilter() {
+        BloomFilter<CharSequence> rebuilt = newBloomFilter();
+        try {
+            scan(KEY_PREFIX, key -> rebuilt.put(key.substring(KEY_PREFIX.length())));
+            scan(EPOCH_KEY_PREFIX, rebuilt::put);
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild revocation Bloom filter, keeping the current one", e);
+            return;
+        }
+        // Keep revocations and epochs that arrived while scanning
+        nearCache.asMap().keySet().forEach(rebuilt::put);
+        epochs.asMap().keySet().forEach(userId -> rebuilt.put(EPOCH_KEY_PREFIX + userId));
+        bloomFilter = rebuilt;
+    }
+
+    private void scan(String prefix, Consumer<String> action) {
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            keys.forEachRemaining(action);
+        }
+    }
+
+    private void remember(String id) {
+        nearCache.put(id, Boolean.TRUE);
+        bloomFilter.put(id);
+    }
+
+    private void rememberEpoch(String userId, long epoch) {
+        epochs.asMap().merge(userId, epoch, Math::max);
+        bloomFilter.put(EPOCH_KEY_PREFIX + userId);
+    }
+
+    private BloomFilter<CharSequence> newBloomFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedRevocations, 0.001);
+    }
+}
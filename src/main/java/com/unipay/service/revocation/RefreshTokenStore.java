@@ -0,0 +1,63 @@
+package com.unipay.service.revocation;
+
+/**
+ * Tracks the current generation of every refresh-token family so that each refresh token can be used once.
+ *
+ * <p>A family is started at generation {@code 0} when a session is created; its ID is the session ID.
+ * Every refresh presents the token's generation and, if it is the current one, advances the family to the
+ * next generation, which the newly issued refresh token carries. Presenting any older generation means a
+ * refresh token was replayed, so the family is dropped and the session must be revoked. The store holds a
+ * single counter per family.
+ *
+ * <p>The implementation follows {@code app.session.store}, so every node sees the same generation: {@code jpa}
+ * keeps it on the session's row, {@code redis} in a key that expires when the family has not been refreshed
+ * for the refresh-token lifetime. A rotation does not check the session's expiry; callers check liveness first.
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Starts a family at generation {@code 0}.
+     *
+     * @param familyId the family ID (the session ID)
+     */
+    void startFamily(String familyId);
+
+    /**
+     * Atomically advances the family if {@code generation} is its current generation.
+     *
+     * @param familyId   the family ID
+     * @param generation the generation of the presented refresh token
+     * @return the outcome and, when rotated, the new generation
+     */
+    Rotation rotate(String familyId, long generation);
+
+    /**
+     * Drops the family, so none of its refresh tokens can be used again.
+     *
+     * @param familyId the family ID
+     */
+    void revokeFamily(String familyId);
+
+    enum Outcome {
+        /** The presented token was current; the family moved to {@link Rotation#generation()}. */
+        ROTATED,
+        /** The presented token had already been used; the family has been dropped. */
+        REUSED,
+        /** No such family: it expired, was revoked, or was dropped after an earlier reuse. */
+        UNKNOWN
+    }
+
+    /**
+     * @param outcome    what happened to the family
+     * @param generation the generation to issue the next refresh token with, meaningful only if rotated
+     */
+    record Rotation(Outcome outcome, long generation) {
+
+        static final Rotation REUSED = new Rotation(Outcome.REUSED, -1);
+        static final Rotation UNKNOWN = new Rotation(Outcome.UNKNOWN, -1);
+
+        static Rotation rotated(long generation) {
+            return new Rotation(Outcome.ROTATED, generation);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.unipay.service.revocation;
+
+/**
+ * Store of revoked session and token identifiers, consulted on every token verification.
+ * Entries live for the refresh-token lifetime, after which every token they could apply to has expired.
+ *
+ * <p>It also holds a per-user session epoch. Tokens carry the epoch current when they were issued, so
+ * revoking every session of a user is a single {@link #advanceEpoch(String)} rather than one revocation
+ * per session. Epochs never expire: a reset counter would let older tokens with a higher epoch through.
+ *
+ * <p>The implementation is selected with {@code app.security.store}: {@code memory} (default, single node
+ * and tests) or {@code redis} (shared by every node of the cluster).
+ */
+public interface RevocationStore {
+
+    /**
+     * Marks the identifier as revoked on every node.
+     *
+     * @param id the session ID or token identifier to revoke
+     */
+    void revoke(String id);
+
+    /**
+     * Checks whether the identifier has been revoked.
+     *
+     * @param id the session ID or token identifier
+     * @return {@code true} if it has been revoked and the revocation has not yet expired
+     */
+    boolean isRevoked(String id);
+
+    /**
+     * Advances the user's session epoch on every node, invalidating every token issued before the call.
+     *
+     * @param userId the user ID
+     * @return the new epoch
+     */
+    long advanceEpoch(String userId);
+
+    /**
+     * Returns the user's current session epoch.
+     *
+     * @param userId the user ID
+     * @return the epoch, {@code 0} if it has never been advanced
+     */
+    long currentEpoch(String userId);
+}
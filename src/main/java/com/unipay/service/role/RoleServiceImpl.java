@@ -12,8 +12,11 @@ import com.unipay.models.UserRole;
 import com.unipay.repository.PermissionRepository;
 import com.unipay.repository.RoleRepository;
 import com.unipay.repository.UserRoleRepository;
+import com.unipay.security.PrincipalChangedEvent;
+import com.unipay.security.RolePermissionsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +31,7 @@ public class RoleServiceImpl implements RoleService{
     private final RoleRepository roleRepository;
     private final UserRoleRepository userRoleRepository;
     private final PermissionRepository permissionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Assigns a role to the user.
@@ -46,6 +50,7 @@ public class RoleServiceImpl implements RoleService{
         UserRole userRole = UserRole.create(user, role);
         userRoleRepository.save(userRole);
         user.getUserRoles().add(userRole);
+        eventPublisher.publishEvent(PrincipalChangedEvent.of(user.getId()));
     }
     /**
      * Updates an existing role's description and/or permissions.
@@ -74,6 +79,7 @@ public class RoleServiceImpl implements RoleService{
             role.setPermissions(permissions);
         }
         roleRepository.save(role);
+        eventPublisher.publishEvent(new RolePermissionsChangedEvent(roleName));
     }
 
 }
@@ -0,0 +1,149 @@
+package com.unipay.service.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job that removes expired and revoked rows from {@code user_sessions}.
+ *
+ * <p>Rows are deleted in chunks of {@code app.session.reaper.batch-size}, each its own short transaction
+ * selecting victims with {@code FOR UPDATE SKIP LOCKED} so it never waits on rows a request is updating,
+ * with {@code app.session.reaper.pause} between chunks to keep the load on the primary flat. A Postgres
+ * session-level advisory lock, held on the connection running the chunks, ensures only one node reaps at a time.
+ *
+ * <p>Publishes {@code sessions.reaper.deleted} (rows removed) and {@code sessions.reaper.lag}, the age in
+ * seconds of the oldest expired session still in the table after the last run.
+ *
+ * <p>With {@code app.session.store=redis} and write-through enabled the table is an audit copy; set
+ * {@code app.session.reaper.enabled=false} there if it must be retained.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.session.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiredSessionReaper {
+
+    /** Advisory lock key, arbitrary but fixed across nodes. */
+    private static final long LOCK_KEY = 0x556E695061790001L;
+
+    private static final String DELETE_CHUNK = """
+            DELETE FROM user_sessions
+            WHERE id IN (
+                SELECT id FROM user_sessions
+                WHERE expires_at < ? OR revoked = true
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+
+    private static final String OLDEST_EXPIRED = "SELECT MIN(expires_at) FROM user_sessions WHERE expires_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration pause;
+    private final Counter deleted;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public ExpiredSessionReaper(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.session.reaper.batch-size:1000}") int batchSize,
+            @Value("${app.session.reaper.pause:100}") long pauseMillis
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.pause = Duration.ofMillis(pauseMillis);
+        this.deleted = Counter.builder("sessions.reaper.deleted")
+                .description("Expired and revoked sessions removed from user_sessions")
+                .register(meterRegistry);
+        meterRegistry.gauge("sessions.reaper.lag", lagSeconds);
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.session.reaper.interval:300000}",
+            fixedDelayString = "${app.session.reaper.interval:300000}"
+    )
+    public void reap() {
+        try {
+            Long removed = jdbcTemplate.execute((ConnectionCallback<Long>) this::reapWithLock);
+            if (removed != null && removed > 0) {
+                log.info("Session reaper removed {} sessions", removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Session reaper run failed", e);
+        }
+    }
+
+    private Long reapWithLock(Connection connection) throws SQLException {
+        if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+            log.debug("Session reaper is running on another node, skipping");
+            return 0L;
+        }
+        try {
+            long removed = 0;
+            int chunk;
+            do {
+                chunk = deleteChunk(connection);
+                removed += chunk;
+                deleted.increment(chunk);
+            } while (chunk == batchSize && pauseBetweenChunks());
+            lagSeconds.set(oldestExpiredAge(connection));
+            return removed;
+        } finally {
+            advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+        }
+    }
+
+    private int deleteChunk(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_CHUNK)) {
+            statement.setTimestamp(1, Timestamp.from(Instant.now()));
+            statement.setInt(2, batchSize);
+            return statement.executeUpdate();
+        }
+    }
+
+    private long oldestExpiredAge(Connection connection) throws SQLException {
+        Instant now = Instant.now();
+        try (PreparedStatement statement = connection.prepareStatement(OLDEST_EXPIRED)) {
+            statement.setTimestamp(1, Timestamp.from(now));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Timestamp oldest = resultSet.next() ? resultSet.getTimestamp(1) : null;
+                return oldest == null ? 0L : Duration.between(oldest.toInstant(), now).toSeconds();
+            }
+        }
+    }
+
+    private boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean pauseBetweenChunks() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
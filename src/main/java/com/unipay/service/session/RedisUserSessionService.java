@@ -0,0 +1,266 @@
+package com.unipay.service.session;
+
+import com.unipay.models.User;
+import com.unipay.models.UserSession;
+import com.unipay.service.revocation.RefreshTokenStore;
+import com.unipay.utils.JwtService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserSessionService} that keeps sessions in Redis, selected with {@code app.session.store=redis}.
+ *
+ * <p>Each session is a hash ({@code unipay:session:{id}}) whose native TTL ends at {@code expiresAt},
+ * so expired sessions disappear without any cleanup job; revoking a session deletes its hash. Activity
+ * slides that TTL up to the session's {@code notAfter} bound. A per-user set
+ * ({@code unipay:user-sessions:{userId}}) indexes a user's sessions, which makes
+ * {@link #revokeAllSessions(User)} a single pipelined round trip.
+ *
+ * <p>With {@code app.session.redis.write-through=true} every change is also copied asynchronously to
+ * {@code user_sessions}, which then serves as the audit copy rather than the source of truth.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.session.store", havingValue = "redis")
+public class RedisUserSessionService implements UserSessionService {
+
+    private static final String SESSION_KEY = "unipay:session:";
+    private static final String USER_SESSIONS_KEY = "unipay:user-sessions:";
+    private static final String USER_ID = "userId";
+    private static final String IP_ADDRESS = "ipAddress";
+    private static final String USER_AGENT = "userAgent";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String REVOKED = "revoked";
+    private static final String LAST_SEEN_AT = "lastSeenAt";
+    private static final String NOT_AFTER = "notAfter";
+
+    private final StringRedisTemplate redisTemplate;
+    private final JwtService jwtService;
+    private final RefreshTokenStore refreshTokenStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor writeThroughExecutor;
+    private final Duration idleTimeout;
+    private final Duration maxLifetime;
+
+    public RedisUserSessionService(
+            StringRedisTemplate redisTemplate,
+            JwtService jwtService,
+            RefreshTokenStore refreshTokenStore,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.session.redis.write-through:true}") boolean writeThrough,
+            @Value("${app.session.idle-timeout:604800000}") long idleTimeout,
+            @Value("${app.session.max-lifetime:2592000000}") long maxLifetime
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.idleTimeout = Duration.ofMillis(idleTimeout);
+        this.maxLifetime = Duration.ofMillis(maxLifetime);
+        this.jwtService = jwtService;
+        this.refreshTokenStore = refreshTokenStore;
+        this.jdbcTemplate = jdbcTemplate;
+        // Bounded queue; when it fills up the caller runs the write itself rather than losing the audit copy
+        this.writeThroughExecutor = writeThrough
+                ? new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10_000),
+                        runnable -> new Thread(runnable, "session-write-through"),
+                        new ThreadPoolExecutor.CallerRunsPolicy())
+                : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UserSession createSession(User user, String userAgent, String ipAddress) {
+        UserSession session = new UserSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUser(user);
+        session.setUserAgent(userAgent);
+        session.setIpAddress(ipAddress);
+        Instant now = Instant.now();
+        Instant notAfter = now.plus(maxLifetime);
+        session.setLastSeenAt(now);
+        session.setExpiresAt(earliest(now.plus(idleTimeout), notAfter));
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put(USER_ID, user.getId());
+        fields.put(EXPIRES_AT, String.valueOf(session.getExpiresAt().toEpochMilli()));
+        fields.put(REVOKED, "0");
+        fields.put(LAST_SEEN_AT, String.valueOf(now.toEpochMilli()));
+        fields.put(NOT_AFTER, String.valueOf(notAfter.toEpochMilli()));
+        if (ipAddress != null) fields.put(IP_ADDRESS, ipAddress);
+        if (userAgent != null) fields.put(USER_AGENT, userAgent);
+
+        String sessionKey = SESSION_KEY + session.getId();
+        String userKey = USER_SESSIONS_KEY + user.getId();
+        Date expiresAt = Date.from(session.getExpiresAt());
+        // Later sessions of the user can only end later, so the index lives as long as the newest one can
+        Date userIndexExpiresAt = Date.from(notAfter);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForHash().putAll(sessionKey, fields);
+                operations.expireAt(sessionKey, expiresAt);
+                operations.opsForSet().add(userKey, session.getId());
+                operations.expireAt(userKey, userIndexExpiresAt);
+                return null;
+            }
+        });
+
+        writeThrough(() -> jdbcTemplate.update("""
+                        INSERT INTO user_sessions
+                            (id, created_at, updated_at, version, is_deleted, revoked, refresh_generation, ip_address, user_agent, expires_at, last_seen_at, user_id)
+                        VALUES (?, ?, ?, 0, false, false, 0, ?, ?, ?, ?, ?)
+                        """,
+                session.getId(), Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now()),
+                ipAddress, userAgent, Timestamp.from(session.getExpiresAt()), Timestamp.from(now), user.getId()));
+        return session;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Expired and revoked sessions no longer exist in Redis, so this is a single hash field read.
+     */
+    @Override
+    public boolean isSessionValid(String sessionId) {
+        Object revoked = redisTemplate.opsForHash().get(SESSION_KEY + sessionId, REVOKED);
+        return "0".equals(revoked);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateSession(String sessionId) {
+        String sessionKey = SESSION_KEY + sessionId;
+        Object userId = redisTemplate.opsForHash().get(sessionKey, USER_ID);
+        if (userId == null) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.delete(sessionKey);
+                operations.opsForSet().remove(USER_SESSIONS_KEY + userId, sessionId);
+                return null;
+            }
+        });
+        jwtService.blacklistToken(sessionId);
+        refreshTokenStore.revokeFamily(sessionId);
+        writeThrough(() -> jdbcTemplate.update("UPDATE user_sessions SET revoked = true WHERE id = ?", sessionId));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Advances the user's session epoch, then deletes every session in the user's index, and the index
+     * itself, in one pipelined round trip.
+     */
+    @Override
+    public void revokeAllSessions(User user) {
+        String userKey = USER_SESSIONS_KEY + user.getId();
+        jwtService.revokeAllTokens(user.getId());
+        Set<String> sessionIds = redisTemplate.opsForSet().members(userKey);
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                sessionIds.forEach(id -> operations.delete(SESSION_KEY + id));
+                operations.delete(userKey);
+                return null;
+            }
+        });
+        writeThrough(() -> jdbcTemplate.update(
+                "UPDATE user_sessions SET revoked = true WHERE user_id = ? AND revoked = false", user.getId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Two pipelined round trips: one reads each session's maximum lifetime, the other moves its TTL.
+     * Sessions that no longer exist are skipped. Activity is not copied to {@code user_sessions}.
+     */
+    @Override
+    public void recordActivity(Map<String, Instant> lastSeen) {
+        List<String> sessionIds = new ArrayList<>(lastSeen.keySet());
+        List<Object> notAfters = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                sessionIds.forEach(id -> operations.opsForHash().get(SESSION_KEY + id, NOT_AFTER));
+                return null;
+            }
+        });
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (int i = 0; i < sessionIds.size(); i++) {
+                    Object notAfter = notAfters.get(i);
+                    if (notAfter == null) {
+                        continue;
+                    }
+                    String sessionKey = SESSION_KEY + sessionIds.get(i);
+                    Instant seen = lastSeen.get(sessionIds.get(i));
+                    Instant expiresAt = earliest(seen.plus(idleTimeout), Instant.ofEpochMilli(Long.parseLong(notAfter.toString())));
+                    operations.opsForHash().put(sessionKey, LAST_SEEN_AT, String.valueOf(seen.toEpochMilli()));
+                    operations.opsForHash().put(sessionKey, EXPIRES_AT, String.valueOf(expiresAt.toEpochMilli()));
+                    operations.expireAt(sessionKey, Date.from(expiresAt));
+                }
+                return null;
+            }
+        });
+    }
+
+    private static Instant earliest(Instant first, Instant second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private void writeThrough(Runnable write) {
+        if (writeThroughExecutor == null) {
+            return;
+        }
+        writeThroughExecutor.execute(() -> {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                log.warn("Failed to copy session change to user_sessions", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writeThroughExecutor != null) {
+            writeThroughExecutor.shutdown();
+            writeThroughExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.unipay.service.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for session activity. Requests only record the latest activity instant per session
+ * in memory; every {@code app.session.activity.flush-interval} the buffered instants are handed to
+ * {@link UserSessionService#recordActivity(Map)} in one batch, so a session costs at most one write per
+ * interval however many requests it makes.
+ *
+ * <p>Publishes the {@code sessions.activity.pending} gauge, the number of sessions waiting to be flushed.
+ */
+@Slf4j
+@Component
+public class SessionActivityTracker {
+
+    private final Map<String, Instant> pending = new ConcurrentHashMap<>();
+    private final UserSessionService userSessionService;
+
+    public SessionActivityTracker(UserSessionService userSessionService, MeterRegistry meterRegistry) {
+        this.userSessionService = userSessionService;
+        meterRegistry.gaugeMapSize("sessions.activity.pending", Tags.empty(), pending);
+    }
+
+    /**
+     * Records activity on the session now. Repeated calls before the next flush overwrite each other.
+     *
+     * @param sessionId the session ID
+     */
+    public void touch(String sessionId) {
+        pending.put(sessionId, Instant.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.activity.flush-interval:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Instant> batch = new HashMap<>();
+        for (String sessionId : pending.keySet()) {
+            Instant lastSeen = pending.remove(sessionId);
+            if (lastSeen != null) {
+                batch.put(sessionId, lastSeen);
+            }
+        }
+        try {
+            userSessionService.recordActivity(batch);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush activity for {} sessions, retrying next interval", batch.size(), e);
+            batch.forEach((sessionId, lastSeen) ->
+                    pending.merge(sessionId, lastSeen, (current, failed) -> current.isAfter(failed) ? current : failed));
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
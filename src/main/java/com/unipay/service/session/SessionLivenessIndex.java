@@ -0,0 +1,116 @@
+package com.unipay.service.session;
+
+import com.unipay.repository.UserSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of session liveness keyed by session ID, holding only each session's
+ * {@code expiresAt} and {@code revoked} flag so that validating a session on every request is a
+ * single map lookup instead of a database query.
+ *
+ * <p>The index is warmed from {@code user_sessions} on startup (through {@code idx_session_expiry}),
+ * updated synchronously by {@link UserSessionServiceImpl} whenever a session is created or revoked,
+ * and purged of expired entries on {@code app.session.index.purge-interval}. A miss, for example a
+ * session created on another node, falls back to the database and populates the index. Entries are not
+ * extended when activity slides a session's expiry; an entry that appears expired is re-read instead.
+ *
+ * <p>Publishes {@code sessions.index.lookups} (tagged {@code result=hit|miss}), the
+ * {@code sessions.index.lookup} latency timer and the {@code sessions.index.size} gauge.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jpa", matchIfMissing = true)
+public class SessionLivenessIndex {
+
+    private final Map<String, Liveness> entries = new ConcurrentHashMap<>();
+    private final UserSessionRepository sessionRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer lookupTimer;
+
+    public SessionLivenessIndex(UserSessionRepository sessionRepository, MeterRegistry meterRegistry) {
+        this.sessionRepository = sessionRepository;
+        this.hits = meterRegistry.counter("sessions.index.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("sessions.index.lookups", "result", "miss");
+        this.lookupTimer = Timer.builder("sessions.index.lookup")
+                .description("Session liveness lookup latency, including database fallback on a miss")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("sessions.index.size", Tags.empty(), entries);
+    }
+
+    /**
+     * Loads every live session's expiry into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        Instant now = Instant.now();
+        sessionRepository.findLiveSessionExpiries(now)
+                .forEach(row -> entries.put((String) row[0], new Liveness((Instant) row[1], false)));
+        log.info("Session liveness index warmed with {} sessions", entries.size());
+    }
+
+    /**
+     * Checks whether the session is live, answering from the index and falling back to the database on a miss.
+     *
+     * @param sessionId the session ID
+     * @return {@code true} if the session exists, is not revoked and has not expired
+     */
+    public boolean isLive(String sessionId) {
+        long start = System.nanoTime();
+        try {
+            Liveness liveness = entries.get(sessionId);
+            if (liveness != null && (liveness.revoked() || liveness.isLive(Instant.now()))) {
+                hits.increment();
+                return !liveness.revoked();
+            }
+            // Absent, or expired here but possibly extended since by sliding expiry on any node
+            misses.increment();
+            return sessionRepository.findById(sessionId)
+                    .map(session -> {
+                        Liveness loaded = new Liveness(session.getExpiresAt(), session.isRevoked());
+                        entries.put(sessionId, loaded);
+                        return loaded.isLive(Instant.now());
+                    })
+                    .orElse(false);
+        } finally {
+            lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void put(String sessionId, Instant expiresAt) {
+        entries.put(sessionId, new Liveness(expiresAt, false));
+    }
+
+    /**
+     * Marks the session revoked. Revoked entries stay until they expire so repeated lookups keep hitting.
+     */
+    public void markRevoked(String sessionId) {
+        entries.computeIfPresent(sessionId, (id, liveness) -> new Liveness(liveness.expiresAt(), true));
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.index.purge-interval:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        entries.values().removeIf(liveness -> liveness.expiresAt() == null || !liveness.expiresAt().isAfter(now));
+    }
+
+    private record Liveness(Instant expiresAt, boolean revoked) {
+        boolean isLive(Instant now) {
+            return !revoked && expiresAt != null && expiresAt.isAfter(now);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.unipay.service.session;
 import com.unipay.models.User;
 import com.unipay.models.UserSession;
 
+import java.time.Instant;
+import java.util.Map;
+
 /**
  * Service interface for managing user sessions.
  * Provides functionality for session creation, validation, and invalidation.
@@ -34,4 +37,13 @@ public interface UserSessionService {
      */
     UserSession createSession(User user, String userAgent, String ipAddress);
     void revokeAllSessions(User user);
+
+    /**
+     * Records the last activity of each session and slides its expiry to {@code lastSeenAt} plus the
+     * idle timeout, never beyond the session's maximum lifetime. Revoked and expired sessions are left untouched.
+     * Called in batches by {@link SessionActivityTracker} rather than once per request.
+     *
+     * @param lastSeen the latest activity instant per session ID
+     */
+    void recordActivity(Map<String, Instant> lastSeen);
 }
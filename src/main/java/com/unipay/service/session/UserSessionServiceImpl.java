@@ -3,28 +3,45 @@ package com.unipay.service.session;
 import com.unipay.models.User;
 import com.unipay.models.UserSession;
 import com.unipay.repository.UserSessionRepository;
+import com.unipay.service.revocation.RefreshTokenStore;
 import com.unipay.utils.JwtService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of {@link UserSessionService} that provides
  * the logic for managing user sessions including creation, validation,
- * and revocation of sessions.
+ * and revocation of sessions. Sessions are stored in {@code user_sessions}; this is the default
+ * implementation ({@code app.session.store=jpa}).
  */
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jpa", matchIfMissing = true)
 @RequiredArgsConstructor
 public class UserSessionServiceImpl implements UserSessionService {
 
 
     private final JwtService jwtService;
+    private final RefreshTokenStore refreshTokenStore;
     private final UserSessionRepository sessionRepository;
+    private final SessionLivenessIndex livenessIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.session.idle-timeout:604800000}")
+    private long idleTimeout;
+
+    @Value("${app.session.max-lifetime:2592000000}")
+    private long maxLifetime;
 
     /**
      * {@inheritDoc}
@@ -36,8 +53,12 @@ public class UserSessionServiceImpl implements UserSessionService {
         session.setUser(user);
         session.setUserAgent(userAgent);
         session.setIpAddress(ipAddress);
-        session.setExpiresAt(Instant.now().plus(7, ChronoUnit.DAYS));
-        return sessionRepository.save(session);
+        Instant now = Instant.now();
+        session.setLastSeenAt(now);
+        session.setExpiresAt(now.plusMillis(Math.min(idleTimeout, maxLifetime)));
+        UserSession saved = sessionRepository.save(session);
+        livenessIndex.put(saved.getId(), saved.getExpiresAt());
+        return saved;
     }
 
     /**
@@ -53,16 +74,12 @@ public class UserSessionServiceImpl implements UserSessionService {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Answered from the {@link SessionLivenessIndex}; only a miss reaches the database.
      */
     @Override
-    @Transactional(readOnly = true)
     public boolean isSessionValid(String sessionId) {
-        return sessionRepository.findById(sessionId)
-                .map(session ->
-                        !session.isRevoked() &&
-                                session.getExpiresAt().isAfter(Instant.now())
-                )
-                .orElse(false);
+        return livenessIndex.isLive(sessionId);
     }
 
     /**
@@ -74,21 +91,48 @@ public class UserSessionServiceImpl implements UserSessionService {
         sessionRepository.findById(sessionId).ifPresent(session -> {
             session.setRevoked(true);
             sessionRepository.save(session);
+            livenessIndex.markRevoked(sessionId);
             jwtService.blacklistToken(sessionId);
+            refreshTokenStore.revokeFamily(sessionId);
         });
     }
     /**
-     * Revokes all active sessions for the given user by removing them from the repository.
+     * Revokes all active sessions for the given user with a single bulk update, then advances the user's
+     * session epoch so every token issued for those sessions is rejected on verification.
      *
      * @param user The user whose sessions are to be revoked.
      */
     @Override
     @Transactional
     public void revokeAllSessions(User user) {
-        sessionRepository.findByUser(user).forEach(session -> {
-            session.setRevoked(true);
-            sessionRepository.save(session);
-            jwtService.blacklistToken(session.getId());
-        });
+        List<String> sessionIds = sessionRepository.findActiveSessionIds(user.getId());
+        int revoked = sessionRepository.revokeAllByUserId(user.getId());
+        sessionIds.forEach(livenessIndex::markRevoked);
+        jwtService.revokeAllTokens(user.getId());
+        log.debug("Revoked {} sessions for user {}", revoked, user.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Applied as one JDBC batch. The maximum lifetime is counted from {@code created_at}. The liveness index
+     * is not updated here; entries that appear expired are re-read from the database.
+     */
+    @Override
+    public void recordActivity(Map<String, Instant> lastSeen) {
+        List<Object[]> batch = lastSeen.entrySet().stream()
+                .map(entry -> new Object[]{
+                        Timestamp.from(entry.getValue()),
+                        Timestamp.from(entry.getValue().plusMillis(idleTimeout)),
+                        maxLifetime / 1000.0,
+                        entry.getKey(),
+                        Timestamp.from(entry.getValue())
+                })
+                .toList();
+        jdbcTemplate.batchUpdate("""
+                UPDATE user_sessions
+                SET last_seen_at = ?, expires_at = LEAST(?, created_at + make_interval(secs => ?))
+                WHERE id = ? AND revoked = false AND expires_at > ?
+                """, batch);
     }
 }
@@ -0,0 +1,144 @@
+package com.unipay.service.signing;
+
+import com.unipay.models.JwtSigningKey;
+import com.unipay.repository.JwtSigningKeyRepository;
+import com.unipay.utils.SigningKeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link SigningKeyStore} backed by the {@code jwt_signing_keys} table.
+ *
+ * <p>Private keys are encrypted with AES-GCM under {@code jwt.key-encryption-key}, with the public key as
+ * associated data so a private key cannot be swapped onto another row. The key is only needed in asymmetric
+ * signing mode, and is checked when the first key is read or written. Changes are serialised across nodes
+ * with a Postgres transaction-level advisory lock.
+ */
+@Component
+public class JpaSigningKeyStore implements SigningKeyStore {
+
+    /** Advisory lock key, arbitrary but fixed across nodes. */
+    private static final long LOCK_KEY = 0x556E695061790002L;
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final JwtSigningKeyRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecretKeySpec encryptionKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public JpaSigningKeyStore(
+            JwtSigningKeyRepository repository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${jwt.key-encryption-key:}") String encryptionKey
+    ) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.encryptionKey = encryptionKey.isBlank()
+                ? null
+                : new SecretKeySpec(Base64.getDecoder().decode(encryptionKey), "AES");
+    }
+
+    @Override
+    public List<StoredKey> findAll() {
+        return repository.findAllByOrderByActivatesAtAsc().stream()
+                .map(this::decode)
+                .toList();
+    }
+
+    @Override
+    public StoredKey create(SigningKeyRing.Algorithm algorithm, PublicKey publicKey, PrivateKey privateKey,
+                            Instant activatesAt) {
+        JwtSigningKey saved = repository.save(JwtSigningKey.create(
+                algorithm,
+                Base64.getEncoder().encodeToString(publicKey.getEncoded()),
+                Base64.getEncoder().encodeToString(encrypt(privateKey.getEncoded(), publicKey.getEncoded())),
+                activatesAt
+        ));
+        return new StoredKey(saved.getId(), algorithm, publicKey, privateKey, activatesAt);
+    }
+
+    @Override
+    public void delete(Collection<String> kids) {
+        repository.deleteAllByIdInBatch(kids);
+    }
+
+    @Override
+    public <T> T withLock(Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", LOCK_KEY);
+            return action.get();
+        });
+    }
+
+    private StoredKey decode(JwtSigningKey key) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(key.getAlgorithm().jcaName());
+            byte[] publicKey = Base64.getDecoder().decode(key.getPublicKey());
+            byte[] privateKey = decrypt(Base64.getDecoder().decode(key.getEncryptedPrivateKey()), publicKey);
+            return new StoredKey(
+                    key.getId(),
+                    key.getAlgorithm(),
+                    keyFactory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)),
+                    key.getActivatesAt()
+            );
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode JWT signing key " + key.getId(), e);
+        }
+    }
+
+    private byte[] encrypt(byte[] plaintext, byte[] associatedData) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, requireEncryptionKey(), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData);
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            byte[] sealed = Arrays.copyOf(iv, IV_LENGTH + ciphertext.length);
+            System.arraycopy(ciphertext, 0, sealed, IV_LENGTH, ciphertext.length);
+            return sealed;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt JWT signing key", e);
+        }
+    }
+
+    private byte[] decrypt(byte[] sealed, byte[] associatedData) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, requireEncryptionKey(), new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+        cipher.updateAAD(associatedData);
+        return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    }
+
+    private SecretKeySpec requireEncryptionKey() {
+        if (encryptionKey == null) {
+            throw new IllegalStateException("jwt.key-encryption-key must be set for asymmetric token signing");
+        }
+        return encryptionKey;
+    }
+}
@@ -0,0 +1,53 @@
+package com.unipay.service.signing;
+
+import com.unipay.utils.SigningKeyRing;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Shared storage for the asymmetric JWT signing keys, so that every node signs and verifies with the same
+ * key ring and keys survive restarts.
+ */
+public interface SigningKeyStore {
+
+    /**
+     * @return every stored key, oldest activation first
+     */
+    List<StoredKey> findAll();
+
+    /**
+     * Stores a new key.
+     *
+     * @param algorithm   the key's signing algorithm
+     * @param publicKey   the public key
+     * @param privateKey  the private key
+     * @param activatesAt when the key starts signing tokens
+     * @return the stored key with its {@code kid}
+     */
+    StoredKey create(SigningKeyRing.Algorithm algorithm, PublicKey publicKey, PrivateKey privateKey, Instant activatesAt);
+
+    /**
+     * @param kids the keys to delete
+     */
+    void delete(Collection<String> kids);
+
+    /**
+     * Runs the action while holding a cluster-wide lock, so only one node changes the key ring at a time.
+     *
+     * @param action the change to make
+     * @return the action's result
+     */
+    <T> T withLock(Supplier<T> action);
+
+    record StoredKey(String kid,
+                     SigningKeyRing.Algorithm algorithm,
+                     PublicKey publicKey,
+                     PrivateKey privateKey,
+                     Instant activatesAt) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.unipay.service.throttle;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.unipay.exception.AdmissionRejectedException;
+import com.unipay.exception.ExceptionPayloadFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key derivation, limit checks and the node-local failure counters shared by the {@link LoginThrottle}
+ * implementations. Subclasses decide where the counts that gate logins are kept.
+ *
+ * <p>Local counters are held in a bounded cache that drops keys idle for a whole window, so a spray of
+ * distinct emails or addresses cannot grow it without limit. Publishes {@code login.throttle.rejected}.
+ */
+@Slf4j
+abstract class AbstractLoginThrottle implements LoginThrottle {
+
+    protected final long slotMillis;
+    protected final int slotCount;
+    private final long emailLimit;
+    private final long ipLimit;
+    private final long networkLimit;
+    private final Cache<String, SlidingWindowCounter> counters;
+    private final Counter rejected;
+
+    protected AbstractLoginThrottle(long windowMillis,
+                                    int slotCount,
+                                    long emailLimit,
+                                    long ipLimit,
+                                    long networkLimit,
+                                    long maximumKeys,
+                                    MeterRegistry meterRegistry) {
+        this.slotCount = slotCount;
+        this.slotMillis = Math.max(1, windowMillis / slotCount);
+        this.emailLimit = emailLimit;
+        this.ipLimit = ipLimit;
+        this.networkLimit = networkLimit;
+        this.counters = CacheBuilder.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(windowMillis, TimeUnit.MILLISECONDS)
+                .build();
+        this.rejected = meterRegistry.counter("login.throttle.rejected");
+    }
+
+    @Override
+    public void checkAllowed(String email, String ipAddress) {
+        List<ThrottleKey> keys = keysFor(email, ipAddress);
+        long now = System.currentTimeMillis();
+        List<long[]> counts = slotCounts(keys.stream().map(ThrottleKey::name).toList(), now);
+        for (int i = 0; i < keys.size(); i++) {
+            long limit = keys.get(i).limit();
+            if (limit <= 0) {
+                continue;
+            }
+            long retryAfter = SlidingWindowCounter.millisUntilBelow(counts.get(i), limit, now, slotMillis);
+            if (retryAfter > 0) {
+                rejected.increment();
+                log.warn("Login attempt throttled on [{}]", keys.get(i).name());
+                throw new AdmissionRejectedException(
+                        ExceptionPayloadFactory.TOO_MANY_LOGIN_ATTEMPTS.get(), Duration.ofMillis(retryAfter));
+            }
+        }
+    }
+
+    @Override
+    public void recordFailure(String email, String ipAddress) {
+        List<String> keys = keysFor(email, ipAddress).stream().map(ThrottleKey::name).toList();
+        long now = System.currentTimeMillis();
+        keys.forEach(key -> localCounter(key).increment(now));
+        increment(keys, now);
+    }
+
+    @Override
+    public void recordSuccess(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = emailKey(email);
+        SlidingWindowCounter counter = counters.getIfPresent(key);
+        if (counter != null) {
+            counter.reset();
+        }
+        reset(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Reports the failures seen by this node.
+     */
+    @Override
+    public List<HotKey> hotKeys(int limit) {
+        long now = System.currentTimeMillis();
+        List<HotKey> hot = new ArrayList<>();
+        counters.asMap().forEach((key, counter) -> {
+            long failures = counter.total(now);
+            if (failures > 0) {
+                hot.add(new HotKey(key, failures));
+            }
+        });
+        return hot.stream()
+                .sorted(Comparator.comparingLong(HotKey::failures).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @return for each key, in order, the failure count of each slot in the window, oldest first
+     */
+    protected abstract List<long[]> slotCounts(List<String> keys, long nowMillis);
+
+    /**
+     * Counts one failure against each key. The node-local counters have already been incremented.
+     */
+    protected abstract void increment(List<String> keys, long nowMillis);
+
+    /**
+     * Clears the failures counted against a key. The node-local counter has already been reset.
+     */
+    protected abstract void reset(String key);
+
+    protected SlidingWindowCounter localCounterIfPresent(String key) {
+        return counters.getIfPresent(key);
+    }
+
+    private SlidingWindowCounter localCounter(String key) {
+        try {
+            return counters.get(key, () -> new SlidingWindowCounter(slotMillis, slotCount));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private List<ThrottleKey> keysFor(String email, String ipAddress) {
+        List<ThrottleKey> keys = new ArrayList<>(3);
+        if (email != null) {
+            keys.add(new ThrottleKey(emailKey(email), emailLimit));
+        }
+        if (ipAddress != null) {
+            keys.add(new ThrottleKey("ip:" + ipAddress, ipLimit));
+            String network = network(ipAddress);
+            if (network != null) {
+                keys.add(new ThrottleKey("net:" + network, networkLimit));
+            }
+        }
+        return keys;
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the /24 of an IPv4 address or the /64 of an IPv6 address, {@code null} if it is not an IP literal
+     */
+    static String network(String ipAddress) {
+        if (!ipAddress.contains(":") && !ipAddress.matches("[0-9.]+")) {
+            return null;
+        }
+        byte[] address;
+        try {
+            // An IP literal is parsed without a name lookup
+            address = InetAddress.getByName(ipAddress).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+        if (address.length == 4) {
+            return (address[0] & 0xFF) + "." + (address[1] & 0xFF) + "." + (address[2] & 0xFF) + ".0/24";
+        }
+        StringBuilder network = new StringBuilder();
+        for (int i = 0; i < 8; i += 2) {
+            network.append(Integer.toHexString((address[i] & 0xFF) << 8 | (address[i + 1] & 0xFF))).append(':');
+        }
+        return network.append(":/64").toString();
+    }
+
+    private record ThrottleKey(String name, long limit) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.unipay.service.throttle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * {@link LoginThrottle} that gates logins on this node's own failure counters. Limits are per node, so
+ * behind a load balancer an attacker gets up to one limit per node; use {@code app.security.store=redis}
+ * for cluster-wide limits.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginThrottle extends AbstractLoginThrottle {
+
+    public InMemoryLoginThrottle(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.login-throttle.window:900000}") long window,
+            @Value("${app.security.login-throttle.slots:15}") int slots,
+            @Value("${app.security.login-throttle.email-limit:10}") long emailLimit,
+            @Value("${app.security.login-throttle.ip-limit:50}") long ipLimit,
+            @Value("${app.security.login-throttle.network-limit:200}") long networkLimit,
+            @Value("${app.security.login-throttle.maximum-keys:100000}") long maximumKeys
+    ) {
+        super(window, slots, emailLimit, ipLimit, networkLimit, maximumKeys, meterRegistry);
+    }
+
+    @Override
+    protected List<long[]> slotCounts(List<String> keys, long nowMillis) {
+        return keys.stream()
+                .map(key -> {
+                    SlidingWindowCounter counter = localCounterIfPresent(key);
+                    return counter == null ? new long[slotCount] : counter.counts(nowMillis);
+                })
+                .toList();
+    }
+
+    @Override
+    protected void increment(List<String> keys, long nowMillis) {
+        // The local counters are the only counters
+    }
+
+    @Override
+    protected void reset(String key) {
+        // The local counters are the only counters
+    }
+}
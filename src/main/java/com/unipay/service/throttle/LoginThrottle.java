@@ -0,0 +1,51 @@
+package com.unipay.service.throttle;
+
+import java.util.List;
+
+/**
+ * Brute-force protection for the login endpoint, consulted before any credential is checked.
+ *
+ * <p>Failed logins are counted per email address, per client IP and per client network (IPv4 /24,
+ * IPv6 /64) over a sliding window. Once any of those counts reaches its limit further attempts are
+ * rejected up front, without hashing the password or querying the database.
+ *
+ * <p>The client IP is the request's remote address. Behind a proxy it is taken from {@code X-Forwarded-For}
+ * only when the proxy is trusted ({@code server.forward-headers-strategy} and
+ * {@code server.tomcat.remoteip.internal-proxies}), so clients cannot pick the key they are counted under.
+ */
+public interface LoginThrottle {
+
+    /**
+     * Rejects the attempt if the email, IP or network has too many recent failures.
+     *
+     * @param email     the email the client is trying to log in as
+     * @param ipAddress the client IP address
+     * @throws com.unipay.exception.AdmissionRejectedException with HTTP 429 and {@code Retry-After} set to when
+     *                                                         the blocking count drops back under its limit
+     */
+    void checkAllowed(String email, String ipAddress);
+
+    /**
+     * Counts a failed login against the email, IP and network.
+     */
+    void recordFailure(String email, String ipAddress);
+
+    /**
+     * Clears the failures counted against the email once its owner has logged in. IP and network
+     * counts are kept, so one valid account cannot be used to reset them.
+     */
+    void recordSuccess(String email);
+
+    /**
+     * @param limit the maximum number of keys to return
+     * @return the keys with the most failures in the current window, highest first
+     */
+    List<HotKey> hotKeys(int limit);
+
+    /**
+     * @param key      the throttle key, prefixed with {@code email:}, {@code ip:} or {@code net:}
+     * @param failures the failures counted against it in the current window
+     */
+    record HotKey(String key, long failures) {
+    }
+}
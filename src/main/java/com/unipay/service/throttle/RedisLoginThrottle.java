@@ -0,0 +1,123 @@
+package com.unipay.service.throttle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoginThrottle} whose limits apply across the cluster, selected with {@code app.security.store=redis}.
+ *
+ * <p>Each slot of a key's window is a Redis counter ({@code unipay:login-throttle:{key}:{slot}}) that expires
+ * once it has left the window, so checking all three keys is a single {@code MGET} and recording a failure a
+ * single pipelined round trip. If Redis is unavailable the check fails open on the node-local counters, which
+ * still hold this node's share of the failures.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.security.store", havingValue = "redis")
+public class RedisLoginThrottle extends AbstractLoginThrottle {
+
+    private static final String KEY_PREFIX = "unipay:login-throttle:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLoginThrottle(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.login-throttle.window:900000}") long window,
+            @Value("${app.security.login-throttle.slots:15}") int slots,
+            @Value("${app.security.login-throttle.email-limit:10}") long emailLimit,
+            @Value("${app.security.login-throttle.ip-limit:50}") long ipLimit,
+            @Value("${app.security.login-throttle.network-limit:200}") long networkLimit,
+            @Value("${app.security.login-throttle.maximum-keys:100000}") long maximumKeys
+    ) {
+        super(window, slots, emailLimit, ipLimit, networkLimit, maximumKeys, meterRegistry);
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    protected List<long[]> slotCounts(List<String> keys, long nowMillis) {
+        long oldestSlot = nowMillis / slotMillis - slotCount + 1;
+        List<String> slotKeys = new ArrayList<>(keys.size() * slotCount);
+        keys.forEach(key -> {
+            for (int i = 0; i < slotCount; i++) {
+                slotKeys.add(slotKey(key, oldestSlot + i));
+            }
+        });
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(slotKeys);
+        } catch (DataAccessException e) {
+            log.warn("Login throttle counters unavailable, using this node's counters", e);
+            values = null;
+        }
+        List<long[]> counts = new ArrayList<>(keys.size());
+        for (int k = 0; k < keys.size(); k++) {
+            long[] slots = new long[slotCount];
+            if (values != null) {
+                for (int i = 0; i < slotCount; i++) {
+                    String value = values.get(k * slotCount + i);
+                    slots[i] = value == null ? 0 : Long.parseLong(value);
+                }
+            } else {
+                SlidingWindowCounter local = localCounterIfPresent(keys.get(k));
+                if (local != null) {
+                    slots = local.counts(nowMillis);
+                }
+            }
+            counts.add(slots);
+        }
+        return counts;
+    }
+
+    @Override
+    protected void increment(List<String> keys, long nowMillis) {
+        long slot = nowMillis / slotMillis;
+        // A slot counter is needed until the window has moved past it
+        long ttlMillis = slotMillis * (slotCount + 1);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    keys.forEach(key -> {
+                        String slotKey = slotKey(key, slot);
+                        operations.opsForValue().increment(slotKey);
+                        operations.expire(slotKey, ttlMillis, TimeUnit.MILLISECONDS);
+                    });
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to record login failure in Redis", e);
+        }
+    }
+
+    @Override
+    protected void reset(String key) {
+        long oldestSlot = System.currentTimeMillis() / slotMillis - slotCount + 1;
+        List<String> slotKeys = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slotKeys.add(slotKey(key, oldestSlot + i));
+        }
+        try {
+            redisTemplate.delete(slotKeys);
+        } catch (DataAccessException e) {
+            log.warn("Failed to clear login failures for [{}]", key, e);
+        }
+    }
+
+    private static String slotKey(String key, long slot) {
+        return KEY_PREFIX + key + ":" + slot;
+    }
+}
@@ -0,0 +1,104 @@
+package com.unipay.service.throttle;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free sliding-window event counter.
+ *
+ * <p>The window is split into a ring of equal slots. Each slot is a single {@code long} packing the slot
+ * number it currently counts for (high 40 bits) with its count (low 24 bits), so incrementing is one
+ * compare-and-set that also recycles a slot left over from an earlier lap of the ring.
+ */
+final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long slotMillis;
+    private final AtomicLongArray slots;
+
+    SlidingWindowCounter(long slotMillis, int slotCount) {
+        this.slotMillis = slotMillis;
+        this.slots = new AtomicLongArray(slotCount);
+    }
+
+    void increment(long nowMillis) {
+        long slot = nowMillis / slotMillis;
+        int index = index(slot);
+        while (true) {
+            long current = slots.get(index);
+            long next;
+            if ((current >>> COUNT_BITS) != slot) {
+                next = (slot << COUNT_BITS) | 1;
+            } else if ((current & COUNT_MASK) == COUNT_MASK) {
+                return;
+            } else {
+                next = current + 1;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the count of each slot in the window, oldest first
+     */
+    long[] counts(long nowMillis) {
+        int slotCount = slots.length();
+        long oldest = nowMillis / slotMillis - slotCount + 1;
+        long[] counts = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            long slot = oldest + i;
+            long value = slots.get(index(slot));
+            counts[i] = (value >>> COUNT_BITS) == slot ? value & COUNT_MASK : 0;
+        }
+        return counts;
+    }
+
+    /**
+     * Slots before the epoch's first window are negative; they map into the ring but never match a stored slot.
+     */
+    private int index(long slot) {
+        return (int) Math.floorMod(slot, (long) slots.length());
+    }
+
+    long total(long nowMillis) {
+        long total = 0;
+        for (long count : counts(nowMillis)) {
+            total += count;
+        }
+        return total;
+    }
+
+    void reset() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0);
+        }
+    }
+
+    /**
+     * Works out how long until the events in a window fall under a limit as their slots expire.
+     *
+     * @param counts     the count of each slot in the window, oldest first, the last being the current slot
+     * @param limit      the limit
+     * @param nowMillis  the current time
+     * @param slotMillis the length of one slot
+     * @return {@code 0} if the window is already under the limit, otherwise the milliseconds until it is
+     */
+    static long millisUntilBelow(long[] counts, long limit, long nowMillis, long slotMillis) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long firstSlot = nowMillis / slotMillis - counts.length + 1;
+        for (int i = 0; i < counts.length && total >= limit; i++) {
+            total -= counts[i];
+            if (total < limit) {
+                // Slot firstSlot + i leaves the window when slot firstSlot + i + length begins
+                return (firstSlot + i + counts.length) * slotMillis - nowMillis;
+            }
+        }
+        return 0;
+    }
+}
@@ -83,9 +83,10 @@ public interface UserService {
      *  3. Sends a password reset email containing that token.
      *
      * @param email the email address to send the reset link to
+     * @return the ID of the user the reset was requested for
      * @throws BusinessException if the user is not found or email sending fails
      */
-    void forgotPassword(String email);
+    String forgotPassword(String email);
     User findByEmail(String email);
     Optional<User> findByEmailWithOptional(String email);
     void changePassword(User user, String newPassword);
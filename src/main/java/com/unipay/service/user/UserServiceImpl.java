@@ -13,6 +13,7 @@ import com.unipay.models.MFASettings;
 import com.unipay.models.User;
 import com.unipay.repository.ConfirmationTokenRepository;
 import com.unipay.repository.UserRepository;
+import com.unipay.security.PrincipalChangedEvent;
 import com.unipay.service.audit_log.AuditLogService;
 import com.unipay.service.mail.EmailService;
 import com.unipay.service.role.RoleService;
@@ -20,6 +21,7 @@ import com.unipay.service.session.UserSessionService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -58,6 +60,7 @@ public class UserServiceImpl implements UserService {
     private final UserSessionService userSessionService;
     private final ConfirmationTokenRepository confirmationTokenRepository;
     private final UserRegistrationHelper registrationHelper;
+    private final ApplicationEventPublisher eventPublisher;
     private final EmailService emailService;
 
     /**
@@ -196,10 +199,11 @@ public class UserServiceImpl implements UserService {
      *  3. Sends a password reset email containing that token.
      *
      * @param email the email address to send the reset link to
+     * @return the ID of the user the reset was requested for
      * @throws BusinessException if the user is not found or email sending fails
      */
     @Transactional
-    public void forgotPassword(String email) {
+    public String forgotPassword(String email) {
         log.info("Initiating forgot-password workflow for [{}]", email);
         try {
             User user = findByEmail(email);
@@ -210,6 +214,7 @@ public class UserServiceImpl implements UserService {
 
             emailService.sendPasswordResetEmail(user, token.getConfirmationToken());
             log.info("Password reset email dispatched to [{}]", email);
+            return user.getId();
 
         } catch (BusinessException be) {
             throw be;
@@ -234,8 +239,9 @@ public class UserServiceImpl implements UserService {
     public void changePassword(User user, String newPassword) {
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userSessionService.revokeAllSessions(user);
-        auditLogService.createAuditLog(
-                user,
+        eventPublisher.publishEvent(PrincipalChangedEvent.of(user.getId()));
+        auditLogService.createAuditLogSynchronously(
+                user.getId(),
                 AuditLogAction.PASSWORD_CHANGED.getAction(),
                 "Password changed - sessions revoked"
         );
@@ -247,8 +253,9 @@ public class UserServiceImpl implements UserService {
         User user = getUserById(userId);
         user.setStatus(UserStatus.INACTIVE);
         userSessionService.revokeAllSessions(user);
-        auditLogService.createAuditLog(
-                user,
+        eventPublisher.publishEvent(PrincipalChangedEvent.of(user.getId()));
+        auditLogService.createAuditLogSynchronously(
+                user.getId(),
                 AuditLogAction.ACCOUNT_LOCKED.getAction(),
                 "Account deactivated - sessions revoked"
         );
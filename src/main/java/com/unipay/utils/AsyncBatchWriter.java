@@ -0,0 +1,176 @@
+package com.unipay.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hands records from request threads to a single background thread that persists them in batches.
+ *
+ * <p>Records wait in a bounded ring buffer of {@code capacity} entries, so memory use is fixed. The writer
+ * passes the sink up to {@code batchSize} records at a time, as soon as that many are waiting or at most
+ * {@code flushInterval} after the first one arrived. When the buffer is full {@link #submit(Object)} waits up
+ * to {@code maxBlock} for room and then writes the record on the calling thread, which slows producers down
+ * to the sink's pace instead of dropping records. Producers that must never wait use {@link #trySubmit(Object)},
+ * which drops the record instead. {@link #close()} stops accepting records and drains the buffer.
+ *
+ * <p>Publishes {@code {name}.queue.depth}, {@code {name}.written}, {@code {name}.caller-writes},
+ * {@code {name}.dropped} and {@code {name}.failed}. A batch the sink throws on is logged and counted as failed, not retried.
+ *
+ * @param <T> the record type
+ */
+@Slf4j
+public class AsyncBatchWriter<T> implements AutoCloseable {
+
+    private final String name;
+    private final BlockingQueue<T> buffer;
+    private final Consumer<List<T>> sink;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration maxBlock;
+    private final Thread writer;
+    private final Counter written;
+    private final Counter callerWrites;
+    private final Counter dropped;
+    private final Counter failed;
+    private volatile boolean running = true;
+
+    public AsyncBatchWriter(String name,
+                            int capacity,
+                            int batchSize,
+                            Duration flushInterval,
+                            Duration maxBlock,
+                            Consumer<List<T>> sink,
+                            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxBlock = maxBlock;
+        this.written = meterRegistry.counter(name + ".written");
+        this.callerWrites = meterRegistry.counter(name + ".caller-writes");
+        this.dropped = meterRegistry.counter(name + ".dropped");
+        this.failed = meterRegistry.counter(name + ".failed");
+        meterRegistry.gauge(name + ".queue.depth", buffer, BlockingQueue::size);
+        this.writer = new Thread(this::run, name + "-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a record for the background writer, writing it on the calling thread if the buffer stays full
+     * for longer than {@code maxBlock} or the writer has been closed.
+     *
+     * @param record the record to persist
+     */
+    public void submit(T record) {
+        if (running) {
+            try {
+                // A record queued while close() runs may miss the final drain; take it back unless it was drained
+                if (buffer.offer(record, maxBlock.toMillis(), TimeUnit.MILLISECONDS)
+                        && (running || !buffer.remove(record))) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        callerWrites.increment();
+        write(List.of(record));
+    }
+
+    /**
+     * Queues a record for the background writer without waiting. The record is dropped if the buffer is full
+     * or the writer has been closed.
+     *
+     * @param record the record to persist
+     * @return {@code true} if the record was queued
+     */
+    public boolean trySubmit(T record) {
+        if (running && buffer.offer(record) && (running || !buffer.remove(record))) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * Stops accepting records and waits for the writer to persist everything already queued, then writes on the
+     * calling thread whatever producers queued while the writer was finishing.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("{} writer did not drain in time, {} records not written", name, buffer.size());
+            return;
+        }
+        drain(new ArrayList<>(batchSize));
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                // Poll rather than take so the loop notices close() without interrupting a write in progress
+                T first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    T next = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : buffer.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            flush(batch);
+        }
+        drain(batch);
+    }
+
+    private void drain(List<T> batch) {
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        write(batch);
+        batch.clear();
+    }
+
+    private void write(List<T> batch) {
+        try {
+            sink.accept(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("{} writer failed to persist {} records", name, batch.size(), e);
+        }
+    }
+}
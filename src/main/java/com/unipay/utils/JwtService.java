@@ -1,40 +1,39 @@
 package com.unipay.utils;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.unipay.payload.UserDetailsImpl;
+import com.unipay.service.mfa.MfaChallengeStore;
+import com.unipay.service.revocation.RefreshTokenStore;
+import com.unipay.service.revocation.RevocationStore;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
     private static final String TOKEN_TYPE = "JWT";
     private static final String TOKEN_ISSUER = "Unipay-Auth-Service";
 
-    private final Cache<String, Boolean> tokenBlacklist =
-            CacheBuilder.newBuilder()
-                    .expireAfterWrite(5, TimeUnit.MINUTES)
-                    .build();
-
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final SigningKeyRing signingKeyRing;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevocationStore revocationStore;
+    private final RefreshTokenStore refreshTokenStore;
+    private final MfaChallengeStore mfaChallengeStore;
 
     @Value("${jwt.access-token-expiration}")
     private long accessTokenExpiration;
@@ -45,133 +44,206 @@ public class JwtService {
     @Value("${jwt.mfa-challenge-expiration}")
     private long mfaChallengeExpiration;
 
+    /**
+     * Encode authorities as the compact {@code pa} bitmask claim instead of the {@code authorities} name list.
+     * Both forms are accepted on verification.
+     */
+    @Value("${jwt.compact-authorities:false}")
+    private boolean compactAuthorities;
+
+    private JwtParser parser;
+
+    /**
+     * Builds the (thread-safe) parser once, so that token verification does not rebuild it on every
+     * call. Keys are located per token by the {@link SigningKeyRing}, which decodes them only once.
+     */
+    @PostConstruct
+    void init() {
+        parser = Jwts.parser()
+                .keyLocator(signingKeyRing)
+                .build();
+    }
+
     public void blacklistToken(String token) {
-        tokenBlacklist.put(token, true);
+        revocationStore.revoke(token);
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return tokenBlacklist.getIfPresent(token) != null;
+        return revocationStore.isRevoked(token);
+    }
+
+    /**
+     * Invalidates every access and refresh token issued to the user so far by advancing their session epoch.
+     *
+     * @param userId the user ID
+     */
+    public void revokeAllTokens(String userId) {
+        revocationStore.advanceEpoch(userId);
     }
 
-    // Add this to token validation logic
     public boolean validateToken(String token) {
         return !isTokenBlacklisted(token);
     }
 
+    /**
+     * Issues the first token pair of a new session and starts its refresh-token family.
+     *
+     * @param userDetails the authenticated principal
+     * @param sessionId   the new session, which is also the refresh-token family ID
+     * @return the access token and a generation {@code 0} refresh token
+     */
     public JwtTokenPair generateTokenPair(UserDetailsImpl userDetails, String sessionId) {
-        String accessToken = buildAccessToken(userDetails, sessionId);
-        String refreshToken = buildRefreshToken(userDetails, sessionId);
+        refreshTokenStore.startFamily(sessionId);
+        return generateTokenPair(userDetails, sessionId, 0L);
+    }
+
+    /**
+     * Issues a token pair for an existing session whose refresh-token family has already been rotated
+     * to {@code refreshGeneration} through the {@link RefreshTokenStore}.
+     *
+     * @param userDetails       the principal
+     * @param sessionId         the session
+     * @param refreshGeneration the family's current generation
+     * @return the access token and a refresh token of that generation
+     */
+    public JwtTokenPair generateTokenPair(UserDetailsImpl userDetails, String sessionId, long refreshGeneration) {
+        long sessionEpoch = revocationStore.currentEpoch(userDetails.getId());
+        String accessToken = buildAccessToken(userDetails, sessionId, sessionEpoch);
+        String refreshToken = buildRefreshToken(userDetails, sessionId, sessionEpoch, refreshGeneration);
         return new JwtTokenPair(accessToken, refreshToken);
     }
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            return claims.containsKey("refresh") && claims.get("refresh", Boolean.class);
+            return verify(token).refresh();
         } catch (JwtException e) {
             return false;
         }
     }
 
+    /**
+     * Parses and verifies the token exactly once (signature and expiry) and returns an immutable
+     * view of its claims. Callers needing several claims should use this instead of the individual
+     * {@code extract*} helpers, each of which performs a full verification.
+     * <p>
+     * When the {@link VerifiedTokenCache} is enabled a previously verified token is served from it,
+     * but the revocation list and the user's session epoch are consulted on every call, cached or not.
+     *
+     * @param token the compact JWT
+     * @return the verified claims view
+     * @throws JwtException if the token is malformed, tampered with, expired or revoked
+     */
+    public VerifiedToken verify(String token) throws JwtException {
+        VerifiedToken verified = verifiedTokenCache.get(token);
+        if (verified == null) {
+            verified = VerifiedToken.from(extractAllClaims(token));
+            verifiedTokenCache.put(token, verified);
+        }
+        if (verified.sessionId() != null && isTokenBlacklisted(verified.sessionId())) {
+            throw new JwtException("Token revoked");
+        }
+        if (verified.userId() != null && verified.sessionEpoch() < revocationStore.currentEpoch(verified.userId())) {
+            throw new JwtException("Token revoked");
+        }
+        return verified;
+    }
+
+    /**
+     * Issues an MFA challenge token and opens its server-side challenge, which bounds how many codes can be
+     * tried against it.
+     *
+     * @param userDetails the principal that passed the password step
+     * @return the challenge token
+     */
     public String generateMfaChallengeToken(UserDetailsImpl userDetails) {
-        return Jwts.builder()
-                .setHeaderParam("typ", TOKEN_TYPE)
-                .setIssuer(TOKEN_ISSUER)
-                .setSubject(userDetails.getUsername())
-                .claim("mfaChallenge", true)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + mfaChallengeExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
-    }
-
-    private String buildAccessToken(UserDetailsImpl userDetails, String sessionId) {
+        String challengeId = UUID.randomUUID().toString();
+        mfaChallengeStore.open(challengeId);
+        JwtBuilder builder = Jwts.builder()
+                .header().type(TOKEN_TYPE).and()
+                .issuer(TOKEN_ISSUER)
+                .subject(userDetails.getUsername())
+                .claim(VerifiedToken.USER_ID, userDetails.getId())
+                .claim(VerifiedToken.SESSION_EPOCH, revocationStore.currentEpoch(userDetails.getId()))
+                .claim(VerifiedToken.MFA_CHALLENGE, true)
+                .claim(VerifiedToken.CHALLENGE_ID, challengeId)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + mfaChallengeExpiration));
+        return signingKeyRing.sign(builder).compact();
+    }
+
+    private String buildAccessToken(UserDetailsImpl userDetails, String sessionId, long sessionEpoch) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("authorities", userDetails.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
-        claims.put("sessionId", sessionId);
-        claims.put("mfaEnabled", userDetails.isMfaRequired());
+        if (compactAuthorities) {
+            claims.put(VerifiedToken.COMPACT_AUTHORITIES, userDetails.getAuthorities().toCompactClaim());
+        } else {
+            claims.put(VerifiedToken.AUTHORITIES, userDetails.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
+        }
+        claims.put(VerifiedToken.USER_ID, userDetails.getId());
+        claims.put(VerifiedToken.SESSION_ID, sessionId);
+        claims.put(VerifiedToken.SESSION_EPOCH, sessionEpoch);
+        claims.put(VerifiedToken.MFA_ENABLED, userDetails.isMfaRequired());
+        claims.put(VerifiedToken.MFA_VERIFIED, userDetails.isMfaVerified());
 
         return buildToken(claims, userDetails, accessTokenExpiration);
     }
 
-    private String buildRefreshToken(UserDetailsImpl userDetails, String sessionId) {
+    private String buildRefreshToken(UserDetailsImpl userDetails, String sessionId, long sessionEpoch,
+                                     long refreshGeneration) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("sessionId", sessionId);
-        claims.put("refresh", true);
+        claims.put(VerifiedToken.USER_ID, userDetails.getId());
+        claims.put(VerifiedToken.SESSION_ID, sessionId);
+        claims.put(VerifiedToken.SESSION_EPOCH, sessionEpoch);
+        claims.put(VerifiedToken.MFA_VERIFIED, userDetails.isMfaVerified());
+        claims.put(VerifiedToken.REFRESH, true);
+        claims.put(VerifiedToken.REFRESH_GENERATION, refreshGeneration);
         return buildToken(claims, userDetails, refreshTokenExpiration);
     }
 
     private String buildToken(Map<String, Object> claims, UserDetails userDetails, long expiration) {
-        return Jwts.builder()
-                .setHeaderParam("typ", TOKEN_TYPE)
-                .setIssuer(TOKEN_ISSUER)
-                .setClaims(claims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        JwtBuilder builder = Jwts.builder()
+                .header().type(TOKEN_TYPE).and()
+                .claims(claims)
+                .issuer(TOKEN_ISSUER)
+                .subject(userDetails.getUsername())
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + expiration));
+        return signingKeyRing.sign(builder).compact();
     }
 
     public String extractSessionId(String token) {
-        return extractClaim(token, claims -> claims.get("sessionId", String.class));
+        return verify(token).sessionId();
     }
 
     public boolean isMfaChallengeToken(String token) {
-        return extractClaim(token, claims -> claims.get("mfaChallenge", Boolean.class)) != null;
+        return verify(token).mfaChallenge();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return username.equals(userDetails.getUsername())
-                    && !isTokenExpired(token)
-                    && validateSession(token);
+            VerifiedToken verified = verify(token);
+            return verified.subject().equals(userDetails.getUsername())
+                    && !verified.isExpired()
+                    && verified.sessionId() != null;
         } catch (JwtException e) {
             return false;
         }
     }
 
-    private boolean validateSession(String token) {
-        String sessionId = extractSessionId(token);
-        // Add session validation logic here (check against session repository)
-        return sessionId != null; // Simplified for example
-    }
-
-    // Existing helper methods remain the same
     public String extractUsername(String token) throws JwtException {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) throws JwtException {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return verify(token).subject();
     }
 
     public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).isExpired();
     }
 
     private Claims extractAllClaims(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public boolean isMfaVerified(String token) {
-        return extractClaim(token, claims -> claims.get("mfaVerified", Boolean.class));
+        return verify(token).mfaVerified();
     }
 
     public record JwtTokenPair(String accessToken, String refreshToken) {}
-}
\ No newline at end of file
+}
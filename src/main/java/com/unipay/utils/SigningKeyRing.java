@@ -0,0 +1,368 @@
+package com.unipay.utils;
+
+import com.unipay.service.signing.SigningKeyStore;
+import com.unipay.service.signing.SigningKeyStore.StoredKey;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the keys used to sign and verify UniPay tokens.
+ *
+ * <p>With {@code jwt.signing-algorithm=HS256} (the default) every token is signed with the shared
+ * {@code jwt.secret}. With {@code ES256} (EC P-256) or {@code EdDSA} (Ed25519) tokens are signed with a key
+ * from a ring kept in the {@link SigningKeyStore}, so every node signs and verifies with the same keys and
+ * restarts do not invalidate issued tokens. Tokens carry the signing key's {@code kid} header. Switching
+ * between the asymmetric algorithms rotates to a key of the new algorithm; keys of the old one stay
+ * verifiable for their usual window.
+ *
+ * <p>Every node reloads the ring on {@code jwt.key-refresh-interval}. When the active key is due for rotation
+ * (after {@code jwt.key-rotation-interval}) one node, under the store's lock, adds the next key with an
+ * activation time {@code jwt.key-publish-lead} in the future. The next key is published through
+ * {@link #jwks()} at once but only signs from its activation time, so edge services holding a cached JWKS
+ * (see {@link #jwksMaxAge()}) and nodes that have not reloaded yet know it before they see a token signed with
+ * it. A key stays available for verification for one refresh-token lifetime after its successor activates.
+ *
+ * <p>In asymmetric mode HS256 tokens are rejected, because anyone holding {@code jwt.secret} could forge them.
+ * While migrating from HS256, set {@code jwt.hs256-accepted-until} to an instant (at least one refresh-token
+ * lifetime after the switch) before which tokens issued under the shared secret are still accepted.
+ */
+@Slf4j
+@Component
+public class SigningKeyRing extends LocatorAdapter<Key> {
+
+    /** Minimum time between ring reloads triggered by a token with an unknown {@code kid}. */
+    private static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Token signing algorithms. Asymmetric algorithms name the JCA algorithm of their keys.
+     */
+    public enum Algorithm {
+        HS256(null),
+        ES256("EC"),
+        EdDSA("Ed25519");
+
+        private final String jcaName;
+
+        Algorithm(String jcaName) {
+            this.jcaName = jcaName;
+        }
+
+        public String jcaName() {
+            return jcaName;
+        }
+
+        KeyPair generateKeyPair() {
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(jcaName);
+                if (this == ES256) {
+                    generator.initialize(new ECGenParameterSpec("secp256r1"));
+                }
+                return generator.generateKeyPair();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot generate " + this + " key pair", e);
+            }
+        }
+    }
+
+    private final SigningKeyStore keyStore;
+    private final Algorithm algorithm;
+    private final SecretKey hmacKey;
+    private final Duration rotationInterval;
+    private final Duration publishLead;
+    private final Duration verificationWindow;
+    private final Duration jwksMaxAge;
+    private final Duration refreshInterval;
+    private final Instant hmacAcceptedUntil;
+    private final AtomicLong lastMissReload = new AtomicLong(System.nanoTime() - MISS_RELOAD_INTERVAL_NANOS);
+    private volatile Ring ring = Ring.EMPTY;
+
+    public SigningKeyRing(
+            SigningKeyStore keyStore,
+            @Value("${jwt.secret}") String secretKey,
+            @Value("${jwt.signing-algorithm:HS256}") Algorithm algorithm,
+            @Value("${jwt.key-rotation-interval:86400000}") long rotationInterval,
+            @Value("${jwt.key-publish-lead:600000}") long publishLead,
+            @Value("${jwt.jwks-max-age:300000}") long jwksMaxAge,
+            @Value("${jwt.key-refresh-interval:60000}") long refreshInterval,
+            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration,
+            @Value("${jwt.hs256-accepted-until:}") String hmacAcceptedUntil
+    ) {
+        this.keyStore = keyStore;
+        this.algorithm = algorithm;
+        this.hmacKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.rotationInterval = Duration.ofMillis(rotationInterval);
+        this.publishLead = Duration.ofMillis(publishLead);
+        this.jwksMaxAge = Duration.ofMillis(jwksMaxAge);
+        this.refreshInterval = Duration.ofMillis(refreshInterval);
+        this.verificationWindow = Duration.ofMillis(refreshTokenExpiration);
+        this.hmacAcceptedUntil = hmacAcceptedUntil.isBlank() ? null : Instant.parse(hmacAcceptedUntil);
+    }
+
+    @PostConstruct
+    void init() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        if (publishLead.compareTo(jwksMaxAge.plus(refreshInterval)) < 0) {
+            throw new IllegalStateException("jwt.key-publish-lead must cover jwt.jwks-max-age and jwt.key-refresh-interval");
+        }
+        if (publishLead.compareTo(rotationInterval) >= 0) {
+            throw new IllegalStateException("jwt.key-publish-lead must be shorter than jwt.key-rotation-interval");
+        }
+        refresh();
+    }
+
+    /**
+     * Signs the builder with the active key, setting the {@code kid} header in asymmetric mode.
+     *
+     * @param builder the token builder
+     * @return the same builder, signed
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (!isAsymmetric()) {
+            return builder.signWith(hmacKey, Jwts.SIG.HS256);
+        }
+        // The algorithm follows the key, so keys of a previous asymmetric algorithm sign until their successor activates
+        StoredKey key = ring.signingKey(Instant.now());
+        return builder
+                .header().keyId(key.kid()).and()
+                .signWith(key.privateKey());
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        if (Jwts.SIG.HS256.getId().equals(header.getAlgorithm())) {
+            if (!acceptsHmac(Instant.now())) {
+                throw new JwtException("HS256 tokens are no longer accepted");
+            }
+            return hmacKey;
+        }
+        String kid = header.getKeyId();
+        if (kid == null) {
+            throw new JwtException("Unknown signing key");
+        }
+        PublicKey key = ring.verificationKey(kid);
+        if (key == null && reloadAfterMiss()) {
+            key = ring.verificationKey(kid);
+        }
+        if (key == null) {
+            throw new JwtException("Unknown signing key");
+        }
+        return key;
+    }
+
+    /**
+     * Reloads the key ring from the store, adding the next key when rotation is due and deleting keys whose
+     * verification window has passed.
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.key-refresh-interval:60000}",
+            fixedDelayString = "${jwt.key-refresh-interval:60000}"
+    )
+    public void refresh() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<StoredKey> keys = keyStore.findAll();
+        if (nextActivation(keys, now) != null || !expiredKids(keys, now).isEmpty()) {
+            keys = keyStore.withLock(() -> rotate(keyStore.findAll(), now));
+        }
+        ring = Ring.of(keys);
+    }
+
+    private List<StoredKey> rotate(List<StoredKey> keys, Instant now) {
+        List<StoredKey> rotated = new ArrayList<>(keys);
+        Instant activatesAt = nextActivation(keys, now);
+        if (activatesAt != null) {
+            KeyPair keyPair = algorithm.generateKeyPair();
+            StoredKey next = keyStore.create(algorithm, keyPair.getPublic(), keyPair.getPrivate(), activatesAt);
+            rotated.add(next);
+            log.info("Added JWT signing key {} activating at {}", next.kid(), activatesAt);
+        }
+        List<String> expired = expiredKids(rotated, now);
+        if (!expired.isEmpty()) {
+            keyStore.delete(expired);
+            rotated.removeIf(key -> expired.contains(key.kid()));
+            log.info("Removed {} retired JWT signing keys", expired.size());
+        }
+        return rotated;
+    }
+
+    /**
+     * @return the activation time of the key to add now, or {@code null} if the ring needs no new key
+     */
+    private Instant nextActivation(List<StoredKey> keys, Instant now) {
+        if (keys.isEmpty()) {
+            // Nothing can have cached an empty ring, so the first key signs at once
+            return now;
+        }
+        StoredKey newest = keys.get(keys.size() - 1);
+        if (newest.activatesAt().isAfter(now)) {
+            return null;
+        }
+        boolean due = !newest.activatesAt().plus(rotationInterval).minus(publishLead).isAfter(now);
+        return due || newest.algorithm() != algorithm ? now.plus(publishLead) : null;
+    }
+
+    /**
+     * @return the keys whose successor has been signing for longer than the verification window
+     */
+    private List<String> expiredKids(List<StoredKey> keys, Instant now) {
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < keys.size() - 1; i++) {
+            Instant successorActivation = keys.get(i + 1).activatesAt();
+            if (successorActivation.plus(verificationWindow).isBefore(now)) {
+                expired.add(keys.get(i).kid());
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Reloads the ring when a token names a key this node does not know, at most once per
+     * {@link #MISS_RELOAD_INTERVAL_NANOS} so forged {@code kid} headers cannot flood the store.
+     */
+    private boolean reloadAfterMiss() {
+        long last = lastMissReload.get();
+        long now = System.nanoTime();
+        if (!isAsymmetric() || now - last < MISS_RELOAD_INTERVAL_NANOS || !lastMissReload.compareAndSet(last, now)) {
+            return false;
+        }
+        ring = Ring.of(keyStore.findAll());
+        return true;
+    }
+
+    /**
+     * @return the JSON Web Key Set of every key currently accepted for verification, including the next key
+     * before it activates; empty in HS256 mode
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        ring.keys().forEach(key -> keys.add(toJwk(key)));
+        return Map.of("keys", keys);
+    }
+
+    /**
+     * @return how long clients may cache {@link #jwks()}; always shorter than the publish lead of a new key
+     */
+    public Duration jwksMaxAge() {
+        return jwksMaxAge;
+    }
+
+    /**
+     * @return whether tokens signed with {@code jwt.secret} are accepted: always in HS256 mode, otherwise only
+     * before the {@code jwt.hs256-accepted-until} migration cutoff
+     */
+    private boolean acceptsHmac(Instant now) {
+        return !isAsymmetric() || (hmacAcceptedUntil != null && now.isBefore(hmacAcceptedUntil));
+    }
+
+    private boolean isAsymmetric() {
+        return algorithm != Algorithm.HS256;
+    }
+
+    private static Map<String, Object> toJwk(StoredKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (key.algorithm() == Algorithm.EdDSA) {
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+        } else {
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+        }
+        jwk.put("use", "sig");
+        jwk.put("alg", key.algorithm().name());
+        jwk.put("kid", key.kid());
+        if (key.algorithm() == Algorithm.EdDSA) {
+            jwk.put("x", ed25519PublicKey(key.publicKey()));
+        } else {
+            ECPublicKey publicKey = (ECPublicKey) key.publicKey();
+            jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+            jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        }
+        return jwk;
+    }
+
+    /**
+     * Encodes an Ed25519 public key as the base64url raw 32 byte key required by RFC 8037, which is the tail
+     * of its X.509 encoding.
+     */
+    private static String ed25519PublicKey(PublicKey publicKey) {
+        byte[] encoded = publicKey.getEncoded();
+        byte[] raw = Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Encodes a P-256 curve coordinate as the fixed-length (32 byte) base64url value required by RFC 7518.
+     */
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, fixed.length);
+        System.arraycopy(bytes, bytes.length - length, fixed, fixed.length - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    /**
+     * Immutable snapshot of the stored keys, oldest activation first.
+     */
+    private record Ring(List<StoredKey> keys, Map<String, PublicKey> verificationKeys) {
+
+        static final Ring EMPTY = new Ring(List.of(), Map.of());
+
+        static Ring of(List<StoredKey> keys) {
+            Map<String, PublicKey> verificationKeys = new HashMap<>();
+            keys.forEach(key -> verificationKeys.put(key.kid(), key.publicKey()));
+            return new Ring(List.copyOf(keys), Map.copyOf(verificationKeys));
+        }
+
+        PublicKey verificationKey(String kid) {
+            return verificationKeys.get(kid);
+        }
+
+        /**
+         * @return the most recently activated key; a key waiting for its activation time never signs
+         */
+        StoredKey signingKey(Instant now) {
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                if (!keys.get(i).activatesAt().isAfter(now)) {
+                    return keys.get(i);
+                }
+            }
+            throw new IllegalStateException("No active JWT signing key");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.unipay.utils;
+
+import com.unipay.security.AuthoritySet;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable view over the claims of a JWT whose signature and expiry have already been verified
+ * by {@link JwtService#verify(String)}. Callers read every claim they need from a single parse
+ * instead of re-verifying the token once per claim.
+ *
+ * @param subject      the token subject (user email)
+ * @param userId       the ID of the user, present on access tokens
+ * @param sessionId    the session the token was issued for, may be {@code null} for MFA challenges
+ * @param sessionEpoch the user's session epoch when the token was issued, {@code 0} if absent
+ * @param authorities  the granted authorities, decoded from either the {@code authorities} list or the
+ *                     compact {@code pa} claim; empty for refresh and challenge tokens
+ * @param mfaEnabled   whether the user had MFA enabled when the token was issued
+ * @param mfaVerified  whether the MFA challenge was completed for this session
+ * @param mfaChallenge whether this is an MFA challenge token
+ * @param challengeId  the server-side challenge of an MFA challenge token, {@code null} otherwise
+ * @param refresh      whether this is a refresh token
+ * @param refreshGeneration the generation of a refresh token within its family, {@code 0} if absent
+ * @param expiresAt    the instant the token expires
+ */
+public record VerifiedToken(
+        String subject,
+        String userId,
+        String sessionId,
+        long sessionEpoch,
+        AuthoritySet authorities,
+        boolean mfaEnabled,
+        boolean mfaVerified,
+        boolean mfaChallenge,
+        String challengeId,
+        boolean refresh,
+        long refreshGeneration,
+        Instant expiresAt
+) {
+
+    static final String USER_ID = "uid";
+    static final String SESSION_ID = "sessionId";
+    static final String SESSION_EPOCH = "sep";
+    static final String AUTHORITIES = "authorities";
+    static final String COMPACT_AUTHORITIES = "pa";
+    static final String MFA_ENABLED = "mfaEnabled";
+    static final String MFA_VERIFIED = "mfaVerified";
+    static final String MFA_CHALLENGE = "mfaChallenge";
+    static final String CHALLENGE_ID = "cid";
+    static final String REFRESH = "refresh";
+    static final String REFRESH_GENERATION = "gen";
+
+    /**
+     * Copies the claims the application relies on out of a parsed claims body.
+     *
+     * @param claims the verified claims
+     * @return an immutable token view
+     */
+    @SuppressWarnings("unchecked")
+    static VerifiedToken from(Claims claims) {
+        Number sessionEpoch = claims.get(SESSION_EPOCH, Number.class);
+        Number refreshGeneration = claims.get(REFRESH_GENERATION, Number.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get(USER_ID, String.class),
+                claims.get(SESSION_ID, String.class),
+                sessionEpoch == null ? 0L : sessionEpoch.longValue(),
+                authoritiesOf(claims),
+                Boolean.TRUE.equals(claims.get(MFA_ENABLED, Boolean.class)),
+                Boolean.TRUE.equals(claims.get(MFA_VERIFIED, Boolean.class)),
+                Boolean.TRUE.equals(claims.get(MFA_CHALLENGE, Boolean.class)),
+                claims.get(CHALLENGE_ID, String.class),
+                Boolean.TRUE.equals(claims.get(REFRESH, Boolean.class)),
+                refreshGeneration == null ? 0L : refreshGeneration.longValue(),
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AuthoritySet authoritiesOf(Claims claims) {
+        String compact = claims.get(COMPACT_AUTHORITIES, String.class);
+        if (compact != null) {
+            try {
+                return AuthoritySet.fromCompactClaim(compact);
+            } catch (IllegalArgumentException e) {
+                throw new JwtException("Unsupported authorities claim: " + e.getMessage(), e);
+            }
+        }
+        List<String> names = claims.get(AUTHORITIES, List.class);
+        return names == null ? AuthoritySet.EMPTY : AuthoritySet.of(names);
+    }
+
+    /**
+     * @return {@code true} if the token's expiry is in the past
+     */
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,90 @@
+package com.unipay.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded cache of already verified tokens, keyed by the SHA-256 digest of the compact JWT so
+ * raw tokens are never held as keys. Clients resend the same access token for its whole lifetime,
+ * so a hit saves the HMAC verification and the claims parse.
+ *
+ * <p>Entries are written with the access-token lifetime as an upper bound and are additionally
+ * dropped on read once the token's own {@code exp} has passed. Revocation is not cached here;
+ * {@link JwtService#verify(String)} checks it on every hit and miss.
+ *
+ * <p>Hit, miss and eviction counts are published under the {@code jwt.verified-tokens} cache name.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.verified-cache.enabled:false}") boolean enabled,
+            @Value("${jwt.verified-cache.maximum-size:10000}") long maximumSize,
+            @Value("${jwt.access-token-expiration}") long accessTokenExpiration,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(accessTokenExpiration, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        if (enabled) {
+            GuavaCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param token the compact JWT
+     * @return the cached verified view, or {@code null} if absent, expired or the cache is disabled
+     */
+    public VerifiedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = digest(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified != null && verified.isExpired()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return verified;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (enabled) {
+            cache.put(digest(token), verified);
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+}
@@ -0,0 +1,157 @@
+package com.unipay.aspect;
+
+import com.unipay.annotation.Auditable;
+import com.unipay.command.LoginCommand;
+import com.unipay.exception.AdmissionRejectedException;
+import com.unipay.exception.BusinessException;
+import com.unipay.exception.ExceptionPayloadFactory;
+import com.unipay.service.audit_log.AuditLogWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityAuditAspectTest {
+
+    @Mock
+    private AuditLogWriter auditLogWriter;
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+    @Mock
+    private MethodSignature signature;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void audit_EmailArgumentNamesAnonymousCaller() throws Throwable {
+        audit("forgotPassword", "user@unipay.com");
+
+        verify(auditLogWriter).offer(isNull(), eq("PASSWORD_RESET_REQUEST"), contains("\"principal\":\"user@unipay.com\""));
+    }
+
+    @Test
+    void audit_CommandEmailNamesFailedLogin() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("bad credentials"));
+
+        assertThrows(IllegalStateException.class,
+                () -> audit("login", new LoginCommand("user@unipay.com", "secret")));
+
+        verify(auditLogWriter).offer(isNull(), eq("USER_LOGIN"), contains("\"principal\":\"user@unipay.com\""));
+    }
+
+    @Test
+    void audit_TokenSubjectNamedByTheMethodSurvivesItsFailure() throws Throwable {
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            SecurityAuditContext.attribute("user@unipay.com", "user-id");
+            throw new BusinessException(ExceptionPayloadFactory.INVALID_TOKEN.get());
+        });
+
+        assertThrows(BusinessException.class, () -> audit("refreshToken", "refresh-token"));
+
+        verify(auditLogWriter).offer(eq("user-id"), eq("TOKEN_REFRESH"), contains("\"principal\":\"user@unipay.com\""));
+    }
+
+    @Test
+    void audit_TokenThatWasNeverVerifiedIsNotAttributed() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new BusinessException(ExceptionPayloadFactory.INVALID_TOKEN.get()));
+
+        assertThrows(BusinessException.class, () -> audit("refreshToken", "forged-token"));
+
+        verify(auditLogWriter).offer(isNull(), eq("TOKEN_REFRESH"), contains("\"principal\":null"));
+    }
+
+    @Test
+    void audit_AttributionDoesNotOutliveTheCall() throws Throwable {
+        audit("refreshToken", "refresh-token");
+
+        SecurityAuditContext.attribute("someone@unipay.com", "other-id");
+        audit("forgotPassword", "user@unipay.com");
+
+        verify(auditLogWriter).offer(isNull(), eq("PASSWORD_RESET_REQUEST"), contains("\"principal\":\"user@unipay.com\""));
+    }
+
+    @Test
+    void audit_ThrottledLoginIsCountedButNotWritten() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new AdmissionRejectedException(
+                ExceptionPayloadFactory.TOO_MANY_LOGIN_ATTEMPTS.get(), Duration.ofSeconds(30)));
+
+        assertThrows(AdmissionRejectedException.class,
+                () -> audit("login", new LoginCommand("user@unipay.com", "secret")));
+
+        verifyNoInteractions(auditLogWriter);
+        assertEquals(1, meterRegistry.get("security.action").tag("outcome", "REJECTED").timer().count());
+    }
+
+    @Test
+    void audit_ExhaustedMfaChallengeIsCountedButNotWritten() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new BusinessException(ExceptionPayloadFactory.INVALID_MFA_CHALLENGE.get()));
+
+        assertThrows(BusinessException.class, () -> audit("verifyMfa", "challenge-token"));
+
+        verifyNoInteractions(auditLogWriter);
+        assertEquals(1, meterRegistry.get("security.action").tag("outcome", "REJECTED").timer().count());
+    }
+
+    @Test
+    void audit_AuthenticatedPrincipalTakesPrecedence() throws Throwable {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin@unipay.com", null, List.of()));
+
+        audit("forgotPassword", "user@unipay.com");
+
+        verify(auditLogWriter).offer(isNull(), eq("PASSWORD_RESET_REQUEST"), contains("\"principal\":\"admin@unipay.com\""));
+    }
+
+    private void audit(String methodName, Object argument) throws Throwable {
+        Method method = AuditedCalls.class.getMethod(methodName, argument.getClass());
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+        lenient().when(joinPoint.getArgs()).thenReturn(new Object[]{argument});
+
+        new SecurityAuditAspect(auditLogWriter, meterRegistry)
+                .audit(joinPoint, method.getAnnotation(Auditable.class));
+    }
+
+    static class AuditedCalls {
+
+        @Auditable(action = "USER_LOGIN", subject = Auditable.Subject.EMAIL_ARGUMENT)
+        public void login(LoginCommand command) {
+        }
+
+        @Auditable(action = "PASSWORD_RESET_REQUEST", subject = Auditable.Subject.EMAIL_ARGUMENT)
+        public void forgotPassword(String email) {
+        }
+
+        @Auditable(action = "MFA_VERIFICATION", subject = Auditable.Subject.VERIFIED_TOKEN)
+        public void verifyMfa(String challengeToken) {
+        }
+
+        @Auditable(action = "TOKEN_REFRESH", subject = Auditable.Subject.VERIFIED_TOKEN)
+        public void refreshToken(String refreshToken) {
+        }
+    }
+}
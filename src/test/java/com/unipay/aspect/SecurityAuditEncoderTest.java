@@ -0,0 +1,49 @@
+package com.unipay.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityAuditEncoderTest {
+
+    private final SecurityAuditEncoder encoder = new SecurityAuditEncoder();
+
+    @Test
+    void encode_WritesStructuredFields() {
+        String encoded = encoder.encode(new SecurityAuditEvent("USER_LOGIN", "AuthenticationServiceImpl.login",
+                null, SecurityAuditEvent.Outcome.FAILURE, 12_345_678L, "BusinessException"));
+
+        assertEquals("{\"method\":\"AuthenticationServiceImpl.login\",\"principal\":null,\"outcome\":\"FAILURE\","
+                + "\"latencyMicros\":12345,\"exception\":\"BusinessException\"}", encoded);
+    }
+
+    @Test
+    void encode_EscapesPrincipal() {
+        String encoded = encoder.encode(new SecurityAuditEvent("USER_LOGOUT", "AuthenticationServiceImpl.logout",
+                "a\"b\\c\nd", SecurityAuditEvent.Outcome.SUCCESS, 0L, null));
+
+        assertTrue(encoded.contains("\"principal\":\"a\\\"b\\\\c\\u000ad\""));
+    }
+
+    @Test
+    void encode_StaysWithinColumnLengthForLongFields() {
+        String longValue = "\"".repeat(500);
+
+        String encoded = encoder.encode(new SecurityAuditEvent("USER_LOGIN", longValue, longValue,
+                SecurityAuditEvent.Outcome.FAILURE, Long.MAX_VALUE, longValue));
+
+        assertTrue(encoded.length() <= SecurityAuditEncoder.MAX_LENGTH);
+        assertTrue(encoded.endsWith("}"));
+    }
+
+    @Test
+    void encode_ReusesBufferWithoutLeakingPreviousEvent() {
+        encoder.encode(new SecurityAuditEvent("USER_LOGIN", "AuthenticationServiceImpl.login",
+                "someone@example.com", SecurityAuditEvent.Outcome.SUCCESS, 1_000L, null));
+
+        String encoded = encoder.encode(new SecurityAuditEvent("TOKEN_REFRESH", "AuthenticationServiceImpl.refreshToken",
+                null, SecurityAuditEvent.Outcome.SUCCESS, 1_000L, null));
+
+        assertFalse(encoded.contains("someone@example.com"));
+    }
+}
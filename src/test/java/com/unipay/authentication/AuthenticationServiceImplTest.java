@@ -10,18 +10,26 @@ import com.unipay.exception.BusinessException;
 import com.unipay.exception.ExceptionPayloadFactory;
 import com.unipay.models.User;
 import com.unipay.models.UserSession;
+import com.unipay.payload.PrincipalProjection;
 import com.unipay.payload.UserDetailsImpl;
 import com.unipay.repository.UserRepository;
 import com.unipay.response.LoginResponse;
+import com.unipay.security.AuthoritySet;
 import com.unipay.security.UserDetailsServiceImpl;
 import com.unipay.service.audit_log.AuditLogService;
 import com.unipay.service.authentication.AuthenticationServiceImpl;
+import com.unipay.service.login_histroy.LoginAttemptRecorder;
 import com.unipay.service.login_histroy.LoginHistoryService;
 import com.unipay.service.mfa.MFAService;
+import com.unipay.service.mfa.MfaChallengeStore;
+import com.unipay.service.revocation.RefreshTokenStore;
 import com.unipay.service.session.UserSessionService;
+import com.unipay.service.throttle.LoginThrottle;
 import com.unipay.service.user.UserService;
 import com.unipay.utils.JwtService;
+import com.unipay.utils.VerifiedToken;
 import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,12 +44,15 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.time.Instant;
 import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -65,6 +76,16 @@ class AuthenticationServiceImplTest {
     @Mock
     private UserDetailsServiceImpl userDetailsService;
     @Mock
+    private LoginThrottle loginThrottle;
+    @Mock
+    private RefreshTokenStore refreshTokenStore;
+    @Mock
+    private LoginAttemptRecorder loginAttemptRecorder;
+    @Mock
+    private MfaChallengeStore mfaChallengeStore;
+    @Mock
+    private AuditLogService auditLogService;
+    @Mock
     private HttpServletRequest request;
 
     @InjectMocks
@@ -82,10 +103,16 @@ class AuthenticationServiceImplTest {
         user.setStatus(UserStatus.ACTIVE);
 
         userDetails = new UserDetailsImpl(
-                user
+                new PrincipalProjection(null, email, null, UserStatus.ACTIVE, false, Set.of()),
+                AuthoritySet.EMPTY
         );
     }
 
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void login_SuccessWithoutMfa() {
         /*LoginCommand command = new LoginCommand(email, password);
@@ -135,6 +162,53 @@ class AuthenticationServiceImplTest {
         verify(loginHistoryService).createLoginHistory(user, request, false);*/
     }
 
+    @Test
+    void login_SuccessReusesAuthenticatedPrincipal() {
+        LoginCommand command = new LoginCommand(email, password);
+        UserDetailsImpl principal = new UserDetailsImpl(
+                new PrincipalProjection("user-id", email, "hash", UserStatus.ACTIVE, false, Set.of()),
+                AuthoritySet.EMPTY
+        );
+        UserSession session = new UserSession();
+        session.setId("session-id");
+
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        when(userRepository.getReferenceById("user-id")).thenReturn(user);
+        when(userSessionService.createSession(eq(user), any(), any())).thenReturn(session);
+        when(jwtService.generateTokenPair(principal, "session-id"))
+                .thenReturn(new JwtService.JwtTokenPair("access", "refresh"));
+
+        LoginResponse response = authenticationService.login(command, request);
+
+        assertEquals("access", response.getTokenPair().accessToken());
+        // The principal loaded while authenticating is the only user lookup; the session gets a reference.
+        // LoginQueryCountTest checks that this lookup is a single statement against a real schema.
+        verify(userRepository).getReferenceById("user-id");
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userService, userDetailsService);
+        verify(loginAttemptRecorder).record(eq(email), eq(request), eq(true), any(), any());
+    }
+
+    @Test
+    void login_MfaUserGetsChallengeWithoutSession() {
+        LoginCommand command = new LoginCommand(email, password);
+        UserDetailsImpl principal = new UserDetailsImpl(
+                new PrincipalProjection("user-id", email, "hash", UserStatus.ACTIVE, true, Set.of()),
+                AuthoritySet.EMPTY
+        );
+
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        when(jwtService.generateMfaChallengeToken(principal)).thenReturn("mfa-token");
+
+        LoginResponse response = authenticationService.login(command, request);
+
+        assertTrue(response.isMfaRequired());
+        assertEquals("mfa-token", response.getMfaChallenge());
+        verifyNoInteractions(userRepository, userService, userSessionService, loginAttemptRecorder);
+    }
+
     @Test
     void verifyMfa_Success() {
         /*MfaVerificationRequest request = new MfaVerificationRequest("token", "123456");
@@ -154,20 +228,84 @@ class AuthenticationServiceImplTest {
     }
 
     @Test
-    void refreshToken_ValidToken() {
-        TokenRefreshRequest request = new TokenRefreshRequest("refresh-token");
+    void verifyMfa_ExhaustedChallengeRejectedBeforeCodeCheck() {
+        when(jwtService.verify("challenge-token")).thenReturn(new VerifiedToken(
+                email, "user-id", null, 0L, AuthoritySet.EMPTY, true, false, true, "challenge-id", false, 0L, Instant.now().plusSeconds(60)));
+        when(mfaChallengeStore.tryAttempt("challenge-id")).thenReturn(false);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> authenticationService.verifyMfa("challenge-token", "123456", this.request));
+
+        assertEquals(ExceptionPayloadFactory.INVALID_MFA_CHALLENGE.get().getMessage(), exception.getPayload().getMessage());
+        verifyNoInteractions(mfaService, loginAttemptRecorder, userSessionService);
+    }
 
-        when(jwtService.isRefreshToken("refresh-token")).thenReturn(true);
-        when(jwtService.extractSessionId("refresh-token")).thenReturn("session-id");
+    @Test
+    void refreshToken_ValidToken() {
+        when(jwtService.verify("refresh-token")).thenReturn(new VerifiedToken(
+                email, null, "session-id", 0L, AuthoritySet.EMPTY, false, false, false, null, true, 3L, Instant.now().plusSeconds(60)));
         when(userSessionService.isSessionValid("session-id")).thenReturn(true);
-        when(jwtService.extractUsername("refresh-token")).thenReturn(email);
+        when(refreshTokenStore.rotate("session-id", 3L)).thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.Outcome.ROTATED, 4L));
         when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
-        when(jwtService.generateTokenPair(any(), any())).thenReturn(new JwtService.JwtTokenPair("new-access", "new-refresh"));
+        when(jwtService.generateTokenPair(userDetails, "session-id", 4L)).thenReturn(new JwtService.JwtTokenPair("new-access", "new-refresh"));
 
         LoginResponse response = authenticationService.refreshToken("refresh-token", this.request);
 
         assertEquals("new-access", response.getTokenPair().accessToken());
-        verify(userSessionService).isSessionValid("session-id");
+        verify(userSessionService, never()).invalidateSession(any());
+    }
+
+    @Test
+    void refreshToken_ExpiredSessionRejectedBeforeRotation() {
+        when(jwtService.verify("refresh-token")).thenReturn(new VerifiedToken(
+                email, null, "session-id", 0L, AuthoritySet.EMPTY, false, false, false, null, true, 3L, Instant.now().plusSeconds(60)));
+        when(userSessionService.isSessionValid("session-id")).thenReturn(false);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> authenticationService.refreshToken("refresh-token", this.request));
+
+        assertEquals(ExceptionPayloadFactory.INVALID_SESSION.get().getMessage(), exception.getPayload().getMessage());
+        verifyNoInteractions(refreshTokenStore);
+    }
+
+    @Test
+    void refreshToken_ReusedTokenRevokesSession() {
+        when(jwtService.verify("refresh-token")).thenReturn(new VerifiedToken(
+                email, null, "session-id", 0L, AuthoritySet.EMPTY, false, false, false, null, true, 1L, Instant.now().plusSeconds(60)));
+        when(userSessionService.isSessionValid("session-id")).thenReturn(true);
+        when(refreshTokenStore.rotate("session-id", 1L)).thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.Outcome.REUSED, -1L));
+
+        assertThrows(BusinessException.class, () -> authenticationService.refreshToken("refresh-token", this.request));
+
+        verify(userSessionService).invalidateSession("session-id");
+        verify(jwtService, never()).generateTokenPair(any(), any(), anyLong());
+    }
+
+    @Test
+    void logout_TokenWithoutUserIdIsAuditedUnderSubject() {
+        UserDetailsImpl principal = new UserDetailsImpl(
+                new PrincipalProjection("user-id", email, "hash", UserStatus.ACTIVE, false, Set.of()),
+                AuthoritySet.EMPTY
+        );
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtService.verify("token")).thenReturn(new VerifiedToken(
+                email, null, "session-id", 0L, AuthoritySet.EMPTY, false, false, false, null, false, 0L, Instant.now().plusSeconds(60)));
+        when(userDetailsService.loadUserByUsername(email)).thenReturn(principal);
+
+        authenticationService.logout(request);
+
+        verify(userSessionService).invalidateSession("session-id");
+        verify(auditLogService).createAuditLog(eq("user-id"), eq(AuditLogAction.LOGOUT.getAction()), any());
+    }
+
+    @Test
+    void forgotPassword_AuditsUserIdWithoutReloadingUser() {
+        when(userService.forgotPassword(email)).thenReturn("user-id");
+
+        authenticationService.forgotPassword(email, request);
+
+        verify(auditLogService).createAuditLog(eq("user-id"), eq(AuditLogAction.PASSWORD_RESET_REQUEST.getAction()), any());
+        verifyNoMoreInteractions(userService);
     }
 
     @Test
@@ -0,0 +1,87 @@
+package com.unipay.authentication;
+
+import com.unipay.enums.RoleName;
+import com.unipay.enums.UserStatus;
+import com.unipay.models.MFASettings;
+import com.unipay.models.Role;
+import com.unipay.models.User;
+import com.unipay.models.UserRole;
+import com.unipay.payload.PrincipalProjection;
+import com.unipay.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements the login lookup issues against a real schema (embedded H2), using Hibernate
+ * statistics. Authentication resolves the principal with {@link UserRepository#findPrincipalByEmail(String)};
+ * the rest of login reuses it, as {@code AuthenticationServiceImplTest} checks with mocks.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+class LoginQueryCountTest {
+
+    private static final String EMAIL = "user@unipay.com";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Role user = entityManager.persist(Role.create(RoleName.USER, "Standard user role"));
+        Role admin = entityManager.persist(Role.create(RoleName.ADMIN, "Administrator role"));
+        User account = entityManager.persist(User.builder()
+                .username("user")
+                .email(EMAIL)
+                .passwordHash("hash")
+                .status(UserStatus.ACTIVE)
+                .build());
+        entityManager.persist(UserRole.create(account, user));
+        entityManager.persist(UserRole.create(account, admin));
+        entityManager.persist(MFASettings.create(true, "SECRET", account));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findPrincipalByEmail_IsOneStatementWithoutLoadingEntities() {
+        PrincipalProjection principal = userRepository.findPrincipalByEmail(EMAIL).orElseThrow();
+
+        assertEquals(Set.of(RoleName.USER, RoleName.ADMIN), principal.roles());
+        assertTrue(principal.mfaEnabled());
+        assertEquals(UserStatus.ACTIVE, principal.status());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void findPrincipalByEmail_UnknownEmailIsOneStatement() {
+        assertTrue(userRepository.findPrincipalByEmail("nobody@unipay.com").isEmpty());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,67 @@
+package com.unipay.mfa;
+
+import com.unipay.service.mfa.RecoveryCodeHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking one recovery code: the keyed digest looked up by index, against a single BCrypt match,
+ * of which the previous scheme ran up to one per stored code.
+ *
+ * <p>Not part of the test suite. Run {@link #main(String[])} from the test classpath after
+ * {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecoveryCodeHasherBenchmark {
+
+    private static final String USER_ID = "4f1c2a9e-5b7d-4e8a-9c3f-1a2b3c4d5e6f";
+    private static final String CODE = "483920";
+
+    private RecoveryCodeHasher hasher;
+    private BCryptPasswordEncoder bcrypt;
+    private String bcryptHash;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        hasher = new RecoveryCodeHasher(Base64.getEncoder().encodeToString(key));
+        bcrypt = new BCryptPasswordEncoder();
+        bcryptHash = bcrypt.encode("000000");
+    }
+
+    @Benchmark
+    public String digest() {
+        return hasher.digest(USER_ID, CODE);
+    }
+
+    @Benchmark
+    public boolean bcryptMatch() {
+        return bcrypt.matches(CODE, bcryptHash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecoveryCodeHasherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
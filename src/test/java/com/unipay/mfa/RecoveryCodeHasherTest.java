@@ -0,0 +1,34 @@
+package com.unipay.mfa;
+
+import com.unipay.service.mfa.RecoveryCodeHasher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecoveryCodeHasherTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final RecoveryCodeHasher hasher = new RecoveryCodeHasher(KEY);
+
+    @Test
+    void digest_IsDeterministicPerUserAndCode() {
+        assertEquals(hasher.digest("user-1", "123456"), hasher.digest("user-1", " 123456 "));
+        assertNotEquals(hasher.digest("user-1", "123456"), hasher.digest("user-2", "123456"));
+        assertNotEquals(hasher.digest("user-1", "123456"), hasher.digest("user-1", "123457"));
+    }
+
+    @Test
+    void constructor_RejectsMissingKey() {
+        assertThrows(IllegalStateException.class, () -> new RecoveryCodeHasher(""));
+    }
+
+    @Test
+    void constructor_RejectsShortKey() {
+        String shortKey = Base64.getEncoder().encodeToString(new byte[16]);
+
+        assertThrows(IllegalStateException.class, () -> new RecoveryCodeHasher(shortKey));
+    }
+}
@@ -0,0 +1,74 @@
+package com.unipay.mfa;
+
+import com.unipay.service.mfa.InMemoryTotpReplayGuard;
+import com.unipay.service.mfa.TotpVerifier;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TotpVerifierTest {
+
+    private final String secret = new DefaultSecretGenerator().generate();
+    private TotpVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new TotpVerifier(new InMemoryTotpReplayGuard(), 100);
+    }
+
+    @Test
+    void verify_AcceptsCodeFromAuthenticatorOnce() throws Exception {
+        String code = new DefaultCodeGenerator().generate(secret, currentStep());
+
+        assertTrue(verifier.verify("user-id", secret, code));
+        assertFalse(verifier.verify("user-id", secret, code));
+    }
+
+    @Test
+    void verify_RejectsOlderCodeAfterNewerOne() throws Exception {
+        DefaultCodeGenerator generator = new DefaultCodeGenerator();
+        long step = currentStep();
+        String previous = generator.generate(secret, step - 1);
+        String current = generator.generate(secret, step);
+
+        assertTrue(verifier.verify("user-id", secret, current));
+        assertFalse(verifier.verify("user-id", secret, previous));
+    }
+
+    @Test
+    void verify_UsesNewSecretAfterChange() throws Exception {
+        DefaultCodeGenerator generator = new DefaultCodeGenerator();
+        long step = currentStep();
+        // Caches the key decoded from the old secret without consuming a step
+        assertFalse(verifier.verify("user-id", secret, codeOutsideWindow(generator, secret, step)));
+
+        String newSecret = new DefaultSecretGenerator().generate();
+
+        assertTrue(verifier.verify("user-id", newSecret, generator.generate(newSecret, step)));
+    }
+
+    @Test
+    void verify_RejectsMalformedCodes() {
+        assertFalse(verifier.verify("user-id", secret, null));
+        assertFalse(verifier.verify("user-id", secret, "12345"));
+        assertFalse(verifier.verify("user-id", secret, "12a456"));
+    }
+
+    private static String codeOutsideWindow(DefaultCodeGenerator generator, String secret, long step) throws Exception {
+        for (int digit = 0; ; digit++) {
+            String candidate = String.valueOf(digit).repeat(6);
+            if (!candidate.equals(generator.generate(secret, step - 1))
+                    && !candidate.equals(generator.generate(secret, step))
+                    && !candidate.equals(generator.generate(secret, step + 1))) {
+                return candidate;
+            }
+        }
+    }
+
+    private static long currentStep() {
+        return System.currentTimeMillis() / 1000 / 30;
+    }
+}
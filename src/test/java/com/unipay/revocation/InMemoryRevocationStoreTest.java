@@ -0,0 +1,42 @@
+package com.unipay.revocation;
+
+import com.unipay.service.revocation.InMemoryRevocationStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRevocationStoreTest {
+
+    private final InMemoryRevocationStore store = new InMemoryRevocationStore(Duration.ofDays(7).toMillis());
+
+    @Test
+    void revoke_MarksOnlyThatIdentifier() {
+        store.revoke("session-1");
+
+        assertTrue(store.isRevoked("session-1"));
+        assertFalse(store.isRevoked("session-2"));
+    }
+
+    @Test
+    void revoke_ExpiresWithRefreshTokenLifetime() throws InterruptedException {
+        InMemoryRevocationStore shortLived = new InMemoryRevocationStore(20);
+        shortLived.revoke("session-1");
+
+        Thread.sleep(50);
+
+        assertFalse(shortLived.isRevoked("session-1"));
+    }
+
+    @Test
+    void advanceEpoch_IncrementsPerUser() {
+        assertEquals(0L, store.currentEpoch("user-1"));
+
+        assertEquals(1L, store.advanceEpoch("user-1"));
+        assertEquals(2L, store.advanceEpoch("user-1"));
+
+        assertEquals(2L, store.currentEpoch("user-1"));
+        assertEquals(0L, store.currentEpoch("user-2"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.unipay.revocation;
+
+import com.unipay.models.UserSession;
+import com.unipay.service.revocation.JpaRefreshTokenStore;
+import com.unipay.service.revocation.RefreshTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(JpaRefreshTokenStore.class)
+class JpaRefreshTokenStoreTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JpaRefreshTokenStore store;
+
+    private String sessionId;
+
+    @BeforeEach
+    void setUp() {
+        UserSession session = new UserSession();
+        session.setExpiresAt(Instant.now().plusSeconds(3_600));
+        sessionId = entityManager.persistAndFlush(session).getId();
+        store.startFamily(sessionId);
+    }
+
+    @Test
+    void rotate_AdvancesCurrentGenerationOnce() {
+        assertEquals(RefreshTokenStore.Outcome.ROTATED, store.rotate(sessionId, 0L).outcome());
+
+        RefreshTokenStore.Rotation second = store.rotate(sessionId, 1L);
+
+        assertEquals(RefreshTokenStore.Outcome.ROTATED, second.outcome());
+        assertEquals(2L, second.generation());
+    }
+
+    @Test
+    void rotate_StaleGenerationIsReuseAndEndsFamily() {
+        store.rotate(sessionId, 0L);
+
+        assertEquals(RefreshTokenStore.Outcome.REUSED, store.rotate(sessionId, 0L).outcome());
+        assertEquals(RefreshTokenStore.Outcome.UNKNOWN, store.rotate(sessionId, 1L).outcome());
+    }
+
+    @Test
+    void rotate_RevokedOrMissingSessionIsUnknown() {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE UserSession s SET s.revoked = true WHERE s.id = :id")
+                .setParameter("id", sessionId)
+                .executeUpdate();
+
+        assertEquals(RefreshTokenStore.Outcome.UNKNOWN, store.rotate(sessionId, 0L).outcome());
+        assertEquals(RefreshTokenStore.Outcome.UNKNOWN, store.rotate("missing", 0L).outcome());
+    }
+
+    @Test
+    void revokeFamily_RejectsCurrentGeneration() {
+        store.revokeFamily(sessionId);
+
+        assertEquals(RefreshTokenStore.Outcome.UNKNOWN, store.rotate(sessionId, 0L).outcome());
+    }
+}
@@ -0,0 +1,66 @@
+package com.unipay.security;
+
+import com.unipay.enums.PermissionName;
+import com.unipay.enums.RoleName;
+import com.unipay.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthorityMatrixTest {
+
+    private final RoleRepository roleRepository = mock(RoleRepository.class);
+    private final AuthorityMatrix matrix = new AuthorityMatrix(roleRepository);
+
+    @Test
+    void forRoles_UnitesPermissionsOfEveryRole() {
+        when(roleRepository.findRolePermissionNames()).thenReturn(List.of(
+                new Object[]{RoleName.USER, PermissionName.VIEW_PROFILE},
+                new Object[]{RoleName.ADMIN, PermissionName.MANAGE_USERS},
+                new Object[]{RoleName.CLIENT, null}
+        ));
+        matrix.compile();
+
+        AuthoritySet set = matrix.forRoles(List.of(RoleName.USER, RoleName.ADMIN));
+
+        assertTrue(set.hasRole(RoleName.USER));
+        assertTrue(set.hasRole(RoleName.ADMIN));
+        assertFalse(set.hasRole(RoleName.CLIENT));
+        assertTrue(set.hasPermission(PermissionName.VIEW_PROFILE));
+        assertTrue(set.hasPermission(PermissionName.MANAGE_USERS));
+        assertFalse(set.hasPermission(PermissionName.VIEW_DASHBOARD));
+        assertEquals(Set.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"),
+                new SimpleGrantedAuthority("VIEW_PROFILE"), new SimpleGrantedAuthority("MANAGE_USERS")), Set.copyOf(set));
+    }
+
+    @Test
+    void forRoles_SharesOneSetPerRoleCombination() {
+        when(roleRepository.findRolePermissionNames()).thenReturn(List.<Object[]>of(
+                new Object[]{RoleName.USER, PermissionName.VIEW_PROFILE}));
+
+        AuthoritySet first = matrix.forRoles(List.of(RoleName.USER));
+        AuthoritySet second = matrix.forRoles(Set.of(RoleName.USER));
+
+        assertSame(first, second);
+        verify(roleRepository, times(1)).findRolePermissionNames();
+    }
+
+    @Test
+    void compile_PicksUpChangedPermissions() {
+        when(roleRepository.findRolePermissionNames())
+                .thenReturn(List.<Object[]>of(new Object[]{RoleName.USER, PermissionName.VIEW_PROFILE}))
+                .thenReturn(List.<Object[]>of(new Object[]{RoleName.USER, PermissionName.UPDATE_PROFILE}));
+        matrix.compile();
+
+        matrix.compile();
+
+        AuthoritySet set = matrix.forRoles(List.of(RoleName.USER));
+        assertFalse(set.hasPermission(PermissionName.VIEW_PROFILE));
+        assertTrue(set.hasPermission(PermissionName.UPDATE_PROFILE));
+    }
+}
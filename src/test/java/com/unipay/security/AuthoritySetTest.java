@@ -0,0 +1,78 @@
+package com.unipay.security;
+
+import com.unipay.enums.PermissionName;
+import com.unipay.enums.RoleName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthoritySetTest {
+
+    @Test
+    void compactClaim_RoundTripsToSameInternedSet() {
+        AuthoritySet set = AuthoritySet.of(
+                AuthoritySet.bit(RoleName.USER) | AuthoritySet.bit(RoleName.CLIENT),
+                AuthoritySet.bit(PermissionName.VIEW_PROFILE) | AuthoritySet.bit(PermissionName.MANAGE_TERMINALS));
+
+        assertSame(set, AuthoritySet.fromCompactClaim(set.toCompactClaim()));
+    }
+
+    @Test
+    void compactClaim_RoundTripsEveryPermissionBit() {
+        long everyPermission = (1L << PermissionName.values().length) - 1;
+        AuthoritySet set = AuthoritySet.of(0L, everyPermission);
+
+        assertEquals(everyPermission, AuthoritySet.fromCompactClaim(set.toCompactClaim()).permissionMask());
+        assertEquals(PermissionName.values().length, set.size());
+    }
+
+    @Test
+    void fromCompactClaim_RejectsPermissionBitPastTheEnum() {
+        long unknownPermission = 1L << PermissionName.values().length;
+        String forged = AuthoritySet.ENCODING_VERSION + ".1." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(unknownPermission).array());
+
+        assertThrows(IllegalArgumentException.class, () -> AuthoritySet.fromCompactClaim(forged));
+    }
+
+    @Test
+    void fromCompactClaim_RejectsRoleBitPastTheEnum() {
+        String forged = AuthoritySet.ENCODING_VERSION + "." + (1L << RoleName.values().length) + "."
+                + AuthoritySet.EMPTY.toCompactClaim().split("\\.")[2];
+
+        assertThrows(IllegalArgumentException.class, () -> AuthoritySet.fromCompactClaim(forged));
+    }
+
+    @Test
+    void fromCompactClaim_RejectsShortPermissionMask() {
+        String claim = AuthoritySet.ENCODING_VERSION + ".1.AAAA";
+
+        assertThrows(IllegalArgumentException.class, () -> AuthoritySet.fromCompactClaim(claim));
+    }
+
+    @Test
+    void fromCompactClaim_RejectsLongPermissionMask() {
+        String claim = AuthoritySet.ENCODING_VERSION + ".1.AAAAAAAAAAAAAA";
+
+        assertThrows(IllegalArgumentException.class, () -> AuthoritySet.fromCompactClaim(claim));
+    }
+
+    @Test
+    void fromCompactClaim_RejectsOtherEncodingVersion() {
+        String claim = "0." + AuthoritySet.EMPTY.toCompactClaim().split("\\.", 2)[1];
+
+        assertThrows(IllegalArgumentException.class, () -> AuthoritySet.fromCompactClaim(claim));
+    }
+
+    @Test
+    void of_IgnoresUnknownNamesAndMatchesMaskedSet() {
+        AuthoritySet set = AuthoritySet.of(List.of("ROLE_ADMIN", "VIEW_AUDIT_LOGS", "NOT_AN_AUTHORITY"));
+
+        assertSame(AuthoritySet.of(AuthoritySet.bit(RoleName.ADMIN), AuthoritySet.bit(PermissionName.VIEW_AUDIT_LOGS)), set);
+        assertEquals(2, set.size());
+    }
+}
@@ -0,0 +1,108 @@
+package com.unipay.security;
+
+import com.unipay.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_DelegateOnPool() {
+        encoder = new BoundedPasswordEncoder(new ReversingEncoder(null), 1, 1,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), meterRegistry);
+
+        String encoded = encoder.encode("secret");
+
+        assertEquals("terces", encoded);
+        assertTrue(encoder.matches("secret", encoded));
+        assertEquals(1, meterRegistry.timer("password.hashing", "operation", "encode").count());
+        assertEquals(1, meterRegistry.timer("password.hashing", "operation", "matches").count());
+    }
+
+    @Test
+    void encode_RejectsWhenPoolAndQueueAreFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new ReversingEncoder(started), 1, 1,
+                Duration.ofSeconds(10), Duration.ofSeconds(5), meterRegistry);
+        callers.submit(() -> encoder.encode("running"));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));
+        awaitQueueDepth(1);
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> encoder.encode("rejected"));
+
+        assertEquals(Duration.ofSeconds(5), e.getRetryAfter());
+        assertEquals(1.0, meterRegistry.counter("password.hashing.rejected").count());
+    }
+
+    @Test
+    void encode_RejectsAfterMaxWait() {
+        encoder = new BoundedPasswordEncoder(new ReversingEncoder(new CountDownLatch(1)), 1, 1,
+                Duration.ofMillis(50), Duration.ofSeconds(1), meterRegistry);
+
+        assertThrows(AdmissionRejectedException.class, () -> encoder.encode("slow"));
+        assertEquals(1.0, meterRegistry.counter("password.hashing.rejected").count());
+    }
+
+    private void awaitQueueDepth(double depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < depth) {
+            assertTrue(System.nanoTime() < deadline, "task was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Reverses the password; when given a latch it counts it down and then blocks until the test releases it.
+     */
+    private class ReversingEncoder implements PasswordEncoder {
+
+        private final CountDownLatch started;
+
+        ReversingEncoder(CountDownLatch started) {
+            this.started = started;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (started != null) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new StringBuilder(rawPassword).reverse().toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
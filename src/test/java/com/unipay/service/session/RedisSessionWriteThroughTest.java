@@ -0,0 +1,70 @@
+package com.unipay.service.session;
+
+import com.unipay.enums.UserStatus;
+import com.unipay.models.User;
+import com.unipay.models.UserSession;
+import com.unipay.repository.UserRepository;
+import com.unipay.service.revocation.RefreshTokenStore;
+import com.unipay.utils.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the Redis store's {@code user_sessions} write-through against the real schema (embedded H2). The copy
+ * is written on the store's own thread, so the test runs outside a transaction and commits its fixtures.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RedisSessionWriteThroughTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @AfterEach
+    void tearDown() {
+        if (user != null) {
+            jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id = ?", user.getId());
+            userRepository.delete(user);
+        }
+    }
+
+    @Test
+    void createSession_CopiesSessionWithInitialRefreshGeneration() throws InterruptedException {
+        user = userRepository.save(User.builder()
+                .username("write-through")
+                .email("write-through@unipay.com")
+                .passwordHash("hash")
+                .status(UserStatus.ACTIVE)
+                .build());
+        RedisUserSessionService service = new RedisUserSessionService(mock(StringRedisTemplate.class),
+                mock(JwtService.class), mock(RefreshTokenStore.class), jdbcTemplate, true, 60_000, 120_000);
+
+        UserSession session = service.createSession(user, "agent", "10.0.0.1");
+        service.shutdown();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT refresh_generation, revoked, ip_address FROM user_sessions WHERE id = ?", session.getId());
+        assertEquals(0L, ((Number) row.get("refresh_generation")).longValue());
+        assertEquals(false, row.get("revoked"));
+        assertEquals("10.0.0.1", row.get("ip_address"));
+    }
+}
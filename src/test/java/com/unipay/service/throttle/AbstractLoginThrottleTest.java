@@ -0,0 +1,68 @@
+package com.unipay.service.throttle;
+
+import com.unipay.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractLoginThrottleTest {
+
+    @Test
+    void network_GroupsIpv4By24() {
+        assertEquals("203.0.113.0/24", AbstractLoginThrottle.network("203.0.113.57"));
+    }
+
+    @Test
+    void network_GroupsIpv6By64() {
+        assertEquals("2001:db8:85a3:8d3::/64", AbstractLoginThrottle.network("2001:db8:85a3:8d3:1319:8a2e:370:7348"));
+        assertEquals("2001:db8:0:0::/64", AbstractLoginThrottle.network("2001:db8::1"));
+    }
+
+    @Test
+    void network_IgnoresNonLiteralsWithoutLookup() {
+        assertNull(AbstractLoginThrottle.network("unipay.com"));
+        assertNull(AbstractLoginThrottle.network("unknown"));
+    }
+
+    @Test
+    void checkAllowed_RejectsEmailAtLimitAndSuccessClearsIt() {
+        InMemoryLoginThrottle throttle = throttle(2, 100, 100);
+        throttle.recordFailure("User@UniPay.com", "203.0.113.1");
+        throttle.recordFailure("user@unipay.com ", "203.0.113.2");
+
+        assertThrows(AdmissionRejectedException.class, () -> throttle.checkAllowed("user@unipay.com", "198.51.100.1"));
+
+        throttle.recordSuccess("user@unipay.com");
+
+        assertDoesNotThrow(() -> throttle.checkAllowed("user@unipay.com", "198.51.100.1"));
+    }
+
+    @Test
+    void checkAllowed_RejectsWholeNetworkAtLimit() {
+        InMemoryLoginThrottle throttle = throttle(100, 100, 2);
+        throttle.recordFailure("a@unipay.com", "203.0.113.1");
+        throttle.recordFailure("b@unipay.com", "203.0.113.2");
+
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> throttle.checkAllowed("c@unipay.com", "203.0.113.3"));
+
+        assertTrue(e.getRetryAfter().toMillis() > 0);
+        assertDoesNotThrow(() -> throttle.checkAllowed("c@unipay.com", "203.0.114.3"));
+    }
+
+    @Test
+    void hotKeys_ListsMostFailedKeysFirst() {
+        InMemoryLoginThrottle throttle = throttle(100, 100, 100);
+        throttle.recordFailure("a@unipay.com", "203.0.113.1");
+        throttle.recordFailure("a@unipay.com", "198.51.100.1");
+        throttle.recordFailure("a@unipay.com", "192.0.2.1");
+
+        assertEquals(new LoginThrottle.HotKey("email:a@unipay.com", 3), throttle.hotKeys(1).get(0));
+    }
+
+    private static InMemoryLoginThrottle throttle(long emailLimit, long ipLimit, long networkLimit) {
+        return new InMemoryLoginThrottle(new SimpleMeterRegistry(), 900_000, 15,
+                emailLimit, ipLimit, networkLimit, 1_000);
+    }
+}
@@ -0,0 +1,114 @@
+package com.unipay.service.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+
+    private static final long SLOT = 1_000;
+    private static final int SLOTS = 4;
+
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(SLOT, SLOTS);
+
+    @Test
+    void counts_AreOrderedOldestFirst() {
+        counter.increment(0);
+        counter.increment(1_500);
+        counter.increment(1_900);
+        counter.increment(3_000);
+
+        assertArrayEquals(new long[]{1, 2, 0, 1}, counter.counts(3_500));
+        assertEquals(4, counter.total(3_500));
+    }
+
+    @Test
+    void increment_RecyclesSlotFromEarlierLap() {
+        counter.increment(500);
+        counter.increment(600);
+
+        // Slot 4 shares slot 0's index and must restart its count instead of adding to it
+        counter.increment(4_100);
+
+        assertArrayEquals(new long[]{0, 0, 0, 1}, counter.counts(4_100));
+    }
+
+    @Test
+    void counts_IgnoreSlotsThatLeftTheWindow() {
+        counter.increment(0);
+
+        assertEquals(1, counter.total(3_999));
+        assertEquals(0, counter.total(4_000));
+    }
+
+    @Test
+    void counts_WindowReachingBeforeTheEpochCountsOnlyRealSlots() {
+        counter.increment(500);
+        counter.increment(1_200);
+
+        // At t=1200 the window covers slots -2..1; the negative ones are empty
+        assertArrayEquals(new long[]{0, 0, 1, 1}, counter.counts(1_200));
+    }
+
+    @Test
+    void increment_SaturatesInsteadOfOverflowingIntoSlotNumber() {
+        long slot = 5;
+        SlidingWindowCounter saturated = new SlidingWindowCounter(SLOT, 1);
+        long max = (1L << 24) - 1;
+        for (long i = 0; i < max + 10; i++) {
+            saturated.increment(slot * SLOT);
+        }
+
+        assertArrayEquals(new long[]{max}, saturated.counts(slot * SLOT));
+    }
+
+    @Test
+    void increment_CountsEveryConcurrentCall() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment(2_000);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, counter.total(2_000));
+    }
+
+    @Test
+    void reset_ClearsEverySlot() {
+        counter.increment(0);
+        counter.increment(3_000);
+
+        counter.reset();
+
+        assertEquals(0, counter.total(3_000));
+    }
+
+    @Test
+    void millisUntilBelow_IsZeroUnderLimit() {
+        assertEquals(0, SlidingWindowCounter.millisUntilBelow(new long[]{1, 0, 2, 1}, 5, 3_500, SLOT));
+    }
+
+    @Test
+    void millisUntilBelow_WaitsForOldestSlotsToExpire() {
+        long[] counts = {2, 0, 3, 1};
+
+        // Window covers slots 0..3 at t=3500; dropping slot 0 (2 events) at t=4000 leaves 4 < 5
+        assertEquals(500, SlidingWindowCounter.millisUntilBelow(counts, 5, 3_500, SLOT));
+        // Dropping slots 0..2 is needed to get under 2, i.e. until slot 6 begins at t=6000
+        assertEquals(2_500, SlidingWindowCounter.millisUntilBelow(counts, 2, 3_500, SLOT));
+    }
+
+    @Test
+    void millisUntilBelow_WaitsForWholeWindowWhenOnlyCurrentSlotCounts() {
+        assertEquals(4_000, SlidingWindowCounter.millisUntilBelow(new long[]{0, 0, 0, 3}, 3, 3_000, SLOT));
+    }
+}
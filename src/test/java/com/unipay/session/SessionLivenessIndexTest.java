@@ -0,0 +1,93 @@
+package com.unipay.session;
+
+import com.unipay.models.UserSession;
+import com.unipay.repository.UserSessionRepository;
+import com.unipay.service.session.SessionLivenessIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionLivenessIndexTest {
+
+    private final UserSessionRepository sessionRepository = mock(UserSessionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SessionLivenessIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SessionLivenessIndex(sessionRepository, meterRegistry);
+    }
+
+    @Test
+    void isLive_AnswersWarmedSessionsWithoutDatabase() {
+        when(sessionRepository.findLiveSessionExpiries(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{"session-1", Instant.now().plusSeconds(60)}));
+        index.warm();
+
+        assertTrue(index.isLive("session-1"));
+
+        verify(sessionRepository, never()).findById(any());
+        assertEquals(1.0, meterRegistry.counter("sessions.index.lookups", "result", "hit").count());
+    }
+
+    @Test
+    void isLive_RevokedSessionIsRejectedWithoutDatabase() {
+        index.put("session-1", Instant.now().plusSeconds(60));
+
+        index.markRevoked("session-1");
+
+        assertFalse(index.isLive("session-1"));
+        verify(sessionRepository, never()).findById(any());
+    }
+
+    @Test
+    void isLive_MissFallsBackToDatabaseOnceAndCaches() {
+        when(sessionRepository.findById("session-1")).thenReturn(Optional.of(session(Instant.now().plusSeconds(60), false)));
+
+        assertTrue(index.isLive("session-1"));
+        assertTrue(index.isLive("session-1"));
+
+        verify(sessionRepository, times(1)).findById("session-1");
+    }
+
+    @Test
+    void isLive_UnknownSessionIsNotLive() {
+        when(sessionRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertFalse(index.isLive("missing"));
+    }
+
+    @Test
+    void isLive_ExpiredEntryIsReReadToPickUpSlidingExpiry() {
+        index.put("session-1", Instant.now().minusSeconds(1));
+        when(sessionRepository.findById("session-1")).thenReturn(Optional.of(session(Instant.now().plusSeconds(60), false)));
+
+        assertTrue(index.isLive("session-1"));
+    }
+
+    @Test
+    void purgeExpired_DropsOnlyExpiredEntries() {
+        index.put("expired", Instant.now().minusSeconds(1));
+        index.put("live", Instant.now().plusSeconds(60));
+
+        index.purgeExpired();
+
+        assertEquals(1.0, meterRegistry.get("sessions.index.size").gauge().value());
+        assertTrue(index.isLive("live"));
+    }
+
+    private static UserSession session(Instant expiresAt, boolean revoked) {
+        UserSession session = new UserSession();
+        session.setExpiresAt(expiresAt);
+        session.setRevoked(revoked);
+        return session;
+    }
+}
@@ -109,7 +109,7 @@ class UserServiceImplTest {
         when(userRepository.existsByEmailOrUsername(any(), any())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(mock(User.class));
         mockProfileAndSettingsMocks();
-        doThrow(new RuntimeException("Error")).when(auditLogService).createAuditLog(any(), any(), any());
+        doThrow(new RuntimeException("Error")).when(auditLogService).createAuditLogSynchronously(any(), any(), any());
 
         // Act & Assert
         BusinessException exception = assertThrows(BusinessException.class, () -> {
@@ -128,6 +128,6 @@ class UserServiceImplTest {
         verify(userProfileService).create(any(), eq(mockUser));
         verify(userSettingsService).create(any(), eq(mockUser));
         verify(loginHistoryService).createLoginHistory(eq(mockUser), eq(mockRequest), eq(true));
-        verify(auditLogService).createAuditLog(eq(mockUser), anyString(), anyString());
+        verify(auditLogService).createAuditLogSynchronously(eq(mockUser.getId()), anyString(), anyString());
     }*/
 }
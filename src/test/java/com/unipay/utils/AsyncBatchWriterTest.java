@@ -0,0 +1,161 @@
+package com.unipay.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncBatchWriterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AsyncBatchWriter<Integer> writer;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void submit_WritesQueuedRecordsInBatches() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        writer = writer(100, 3, Duration.ofMillis(50), blockingSink(started));
+        writer.submit(0);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i <= 6; i++) {
+            writer.submit(i);
+        }
+
+        release.countDown();
+        writer.close();
+
+        assertEquals(List.of(List.of(0), List.of(1, 2, 3), List.of(4, 5, 6)), batches);
+        assertEquals(7.0, meterRegistry.counter("test.written").count());
+    }
+
+    @Test
+    void submit_FlushesPartialBatchAfterInterval() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        writer = writer(100, 10, Duration.ofMillis(20), records -> {
+            batches.add(List.copyOf(records));
+            written.countDown();
+        });
+
+        writer.submit(1);
+
+        assertTrue(written.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1)), batches);
+    }
+
+    @Test
+    void submit_WritesOnCallerThreadWhenBufferStaysFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        writer = writer(1, 1, Duration.ofMillis(10), blockingSink(started));
+        writer.submit(1);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        writer.submit(2);
+
+        writer.submit(3);
+
+        assertEquals(Thread.currentThread().getName(), writerThreads.get(writerThreads.size() - 1));
+        assertEquals(List.of(3), batches.get(batches.size() - 1));
+        assertEquals(1.0, meterRegistry.counter("test.caller-writes").count());
+    }
+
+    @Test
+    void trySubmit_DropsWhenBufferIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        writer = writer(1, 1, Duration.ofMillis(10), blockingSink(started));
+        writer.submit(1);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertTrue(writer.trySubmit(2));
+        assertFalse(writer.trySubmit(3));
+
+        release.countDown();
+        writer.close();
+        assertEquals(List.of(List.of(1), List.of(2)), batches);
+        assertEquals(1.0, meterRegistry.counter("test.dropped").count());
+    }
+
+    @Test
+    void close_DrainsEverythingQueued() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        writer = writer(100, 2, Duration.ofMillis(50), blockingSink(started));
+        writer.submit(0);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            writer.submit(i);
+        }
+
+        release.countDown();
+        writer.close();
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), batches.stream().flatMap(List::stream).toList());
+        assertEquals(0.0, meterRegistry.get("test.queue.depth").gauge().value());
+    }
+
+    @Test
+    void afterClose_SubmitWritesOnCallerAndTrySubmitDrops() {
+        writer = writer(10, 10, Duration.ofMillis(10), records -> batches.add(List.copyOf(records)));
+        writer.close();
+
+        writer.submit(1);
+
+        assertEquals(List.of(List.of(1)), batches);
+        assertFalse(writer.trySubmit(2));
+        assertEquals(1.0, meterRegistry.counter("test.dropped").count());
+    }
+
+    @Test
+    void failedBatch_IsCountedAndWriterKeepsGoing() {
+        writer = writer(10, 1, Duration.ofMillis(10), records -> {
+            if (records.contains(1)) {
+                throw new IllegalStateException("sink down");
+            }
+            batches.add(List.copyOf(records));
+        });
+
+        writer.submit(1);
+        writer.submit(2);
+        writer.close();
+
+        assertEquals(List.of(List.of(2)), batches);
+        assertEquals(1.0, meterRegistry.counter("test.failed").count());
+    }
+
+    private AsyncBatchWriter<Integer> writer(int capacity, int batchSize, Duration flushInterval, Consumer<List<Integer>> sink) {
+        return new AsyncBatchWriter<>("test", capacity, batchSize, flushInterval, Duration.ofMillis(50), sink, meterRegistry);
+    }
+
+    /**
+     * Records each batch and the thread writing it; the first batch signals {@code started} and blocks until released.
+     */
+    private Consumer<List<Integer>> blockingSink(CountDownLatch started) {
+        return records -> {
+            writerThreads.add(Thread.currentThread().getName());
+            if (started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batches.add(List.copyOf(records));
+        };
+    }
+}
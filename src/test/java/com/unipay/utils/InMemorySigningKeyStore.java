@@ -0,0 +1,56 @@
+package com.unipay.utils;
+
+import com.unipay.service.signing.SigningKeyStore;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link SigningKeyStore} kept in a list, standing in for the shared table in tests and benchmarks.
+ */
+class InMemorySigningKeyStore implements SigningKeyStore {
+
+    final List<StoredKey> keys = new ArrayList<>();
+    private int sequence;
+
+    /**
+     * Stores an ES256 key activating at the given time.
+     *
+     * @return the key's {@code kid}
+     */
+    String add(Instant activatesAt) {
+        KeyPair keyPair = SigningKeyRing.Algorithm.ES256.generateKeyPair();
+        return create(SigningKeyRing.Algorithm.ES256, keyPair.getPublic(), keyPair.getPrivate(), activatesAt).kid();
+    }
+
+    @Override
+    public synchronized List<StoredKey> findAll() {
+        return List.copyOf(keys);
+    }
+
+    @Override
+    public synchronized StoredKey create(SigningKeyRing.Algorithm algorithm, PublicKey publicKey,
+                                         PrivateKey privateKey, Instant activatesAt) {
+        StoredKey key = new StoredKey("kid-" + sequence++, algorithm, publicKey, privateKey, activatesAt);
+        keys.add(key);
+        keys.sort(Comparator.comparing(StoredKey::activatesAt));
+        return key;
+    }
+
+    @Override
+    public synchronized void delete(Collection<String> kids) {
+        keys.removeIf(key -> kids.contains(key.kid()));
+    }
+
+    @Override
+    public synchronized <T> T withLock(Supplier<T> action) {
+        return action.get();
+    }
+}
@@ -0,0 +1,163 @@
+package com.unipay.utils;
+
+import com.unipay.service.signing.SigningKeyStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SigningKeyRingTest {
+
+    private static final String SECRET = "QkZDa0Z3S3dZalZ3YnhNU2h4T2dUYUJ3U2NhVGxLQ3RtU1h3QmFsRVRPbXlXR1pU";
+    private static final long ROTATION = Duration.ofDays(1).toMillis();
+    private static final long LEAD = Duration.ofMinutes(10).toMillis();
+    private static final long REFRESH_TOKEN_LIFETIME = Duration.ofDays(7).toMillis();
+
+    private final InMemorySigningKeyStore store = new InMemorySigningKeyStore();
+
+    @Test
+    void nodesSharingTheStoreVerifyEachOthersTokens() {
+        SigningKeyRing nodeA = ring(SigningKeyRing.Algorithm.ES256);
+        SigningKeyRing nodeB = ring(SigningKeyRing.Algorithm.ES256);
+
+        String token = nodeA.sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        assertEquals(1, store.keys.size());
+        assertEquals("user@unipay.com", parse(nodeB, token).getSubject());
+    }
+
+    @Test
+    void restartKeepsVerifyingIssuedTokens() {
+        String token = ring(SigningKeyRing.Algorithm.ES256).sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        SigningKeyRing restarted = ring(SigningKeyRing.Algorithm.ES256);
+
+        assertEquals("user@unipay.com", parse(restarted, token).getSubject());
+    }
+
+    @Test
+    void nextKeyIsPublishedBeforeItSigns() {
+        String current = store.add(Instant.now().minusMillis(ROTATION));
+        SigningKeyRing ring = ring(SigningKeyRing.Algorithm.ES256);
+
+        assertEquals(2, store.keys.size());
+        SigningKeyStore.StoredKey next = store.keys.get(1);
+        assertTrue(next.activatesAt().isAfter(Instant.now().plusMillis(LEAD).minusSeconds(60)));
+        assertEquals(2, keysIn(ring.jwks()).size());
+        String token = ring.sign(Jwts.builder().subject("user@unipay.com")).compact();
+        assertEquals(current, Jwts.parser().keyLocator(ring).build()
+                .parseSignedClaims(token).getHeader().getKeyId());
+    }
+
+    @Test
+    void retiredKeyIsRemovedAfterVerificationWindow() {
+        store.add(Instant.now().minusMillis(REFRESH_TOKEN_LIFETIME + ROTATION + 1_000));
+        String successor = store.add(Instant.now().minusMillis(REFRESH_TOKEN_LIFETIME + 1_000));
+        store.add(Instant.now().minusMillis(1_000));
+
+        ring(SigningKeyRing.Algorithm.ES256);
+
+        assertEquals(2, store.keys.size());
+        assertEquals(successor, store.keys.get(0).kid());
+    }
+
+    @Test
+    void eddsaKeysSignAndArePublishedAsOkpJwks() {
+        SigningKeyRing ring = ring(SigningKeyRing.Algorithm.EdDSA);
+
+        String token = ring.sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        assertEquals("user@unipay.com", parse(ring, token).getSubject());
+        Map<String, Object> jwk = keysIn(ring.jwks()).get(0);
+        assertEquals("OKP", jwk.get("kty"));
+        assertEquals("Ed25519", jwk.get("crv"));
+        assertEquals(43, ((String) jwk.get("x")).length());
+    }
+
+    @Test
+    void switchingAlgorithmPublishesNewKeyBeforeItSigns() {
+        String token = ring(SigningKeyRing.Algorithm.ES256).sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        SigningKeyRing switched = ring(SigningKeyRing.Algorithm.EdDSA);
+
+        assertEquals(2, store.keys.size());
+        assertEquals(SigningKeyRing.Algorithm.EdDSA, store.keys.get(1).algorithm());
+        assertTrue(store.keys.get(1).activatesAt().isAfter(Instant.now()));
+        assertEquals("user@unipay.com", parse(switched, token).getSubject());
+    }
+
+    @Test
+    void unknownKidIsRejected() {
+        SigningKeyRing ring = ring(SigningKeyRing.Algorithm.ES256);
+        KeyPair foreign = SigningKeyRing.Algorithm.ES256.generateKeyPair();
+        String token = Jwts.builder().header().keyId("unknown").and().subject("x").signWith(foreign.getPrivate()).compact();
+
+        assertThrows(JwtException.class, () -> parse(ring, token));
+    }
+
+    @Test
+    void hmacModeDoesNotTouchTheStore() {
+        SigningKeyRing ring = ring(SigningKeyRing.Algorithm.HS256);
+
+        String token = ring.sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        assertEquals("user@unipay.com", parse(ring, token).getSubject());
+        assertTrue(store.keys.isEmpty());
+    }
+
+    @Test
+    void hmacTokensAreRejectedInAsymmetricModeWithoutMigrationCutoff() {
+        String token = ring(SigningKeyRing.Algorithm.HS256).sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        SigningKeyRing ring = ring(SigningKeyRing.Algorithm.ES256);
+
+        assertThrows(JwtException.class, () -> parse(ring, token));
+    }
+
+    @Test
+    void hmacTokensAreAcceptedOnlyBeforeMigrationCutoff() {
+        String token = ring(SigningKeyRing.Algorithm.HS256).sign(Jwts.builder().subject("user@unipay.com")).compact();
+
+        SigningKeyRing migrating = ring(SigningKeyRing.Algorithm.ES256, Instant.now().plusSeconds(3_600).toString());
+        SigningKeyRing migrated = ring(SigningKeyRing.Algorithm.ES256, Instant.now().minusSeconds(1).toString());
+
+        assertEquals("user@unipay.com", parse(migrating, token).getSubject());
+        assertThrows(JwtException.class, () -> parse(migrated, token));
+    }
+
+    @Test
+    void publishLeadShorterThanJwksCacheIsRejected() {
+        SigningKeyRing ring = new SigningKeyRing(store, SECRET, SigningKeyRing.Algorithm.ES256,
+                ROTATION, 60_000, 300_000, 60_000, REFRESH_TOKEN_LIFETIME, "");
+
+        assertThrows(IllegalStateException.class, ring::init);
+    }
+
+    private SigningKeyRing ring(SigningKeyRing.Algorithm algorithm) {
+        return ring(algorithm, "");
+    }
+
+    private SigningKeyRing ring(SigningKeyRing.Algorithm algorithm, String hmacAcceptedUntil) {
+        SigningKeyRing ring = new SigningKeyRing(store, SECRET, algorithm,
+                ROTATION, LEAD, 300_000, 60_000, REFRESH_TOKEN_LIFETIME, hmacAcceptedUntil);
+        ring.init();
+        return ring;
+    }
+
+    private static Claims parse(SigningKeyRing ring, String token) {
+        return Jwts.parser().keyLocator(ring).build().parseSignedClaims(token).getPayload();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> keysIn(Map<String, Object> jwks) {
+        return (List<Map<String, Object>>) jwks.get("keys");
+    }
+}
@@ -0,0 +1,80 @@
+package com.unipay.utils;
+
+import com.unipay.security.AuthoritySet;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify throughput of an access-token-sized JWT under each {@link SigningKeyRing.Algorithm}.
+ *
+ * <p>Not part of the test suite. Run {@link #main(String[])} from the test classpath after
+ * {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenSigningBenchmark {
+
+    private static final String SECRET = "QkZDa0Z3S3dZalZ3YnhNU2h4T2dUYUJ3U2NhVGxLQ3RtU1h3QmFsRVRPbXlXR1pU";
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    public SigningKeyRing.Algorithm algorithm;
+
+    private SigningKeyRing ring;
+    private JwtParser parser;
+    private String authorities;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        ring = new SigningKeyRing(new InMemorySigningKeyStore(), SECRET, algorithm,
+                Duration.ofDays(1).toMillis(), Duration.ofMinutes(10).toMillis(), Duration.ofMinutes(5).toMillis(),
+                Duration.ofMinutes(1).toMillis(), Duration.ofDays(7).toMillis(), "");
+        ring.init();
+        parser = Jwts.parser().keyLocator(ring).build();
+        authorities = AuthoritySet.of(0b11L, 0b11111L).toCompactClaim();
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        return ring.sign(Jwts.builder()
+                .subject("user@unipay.com")
+                .claim(VerifiedToken.USER_ID, "4f1c2a9e-5b7d-4e8a-9c3f-1a2b3c4d5e6f")
+                .claim(VerifiedToken.SESSION_ID, "9e8d7c6b-5a4f-4e3d-8c2b-1a0f9e8d7c6b")
+                .claim(VerifiedToken.COMPACT_AUTHORITIES, authorities)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 900_000)))
+                .compact();
+    }
+
+    @Benchmark
+    public Object verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenSigningBenchmark.class.getSimpleName()).build()).run();
+    }
+}
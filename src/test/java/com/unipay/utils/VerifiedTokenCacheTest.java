@@ -0,0 +1,65 @@
+package com.unipay.utils;
+
+import com.unipay.security.AuthoritySet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final long ACCESS_TOKEN_LIFETIME = Duration.ofMinutes(15).toMillis();
+
+    @Test
+    void get_ReturnsPutTokenOnlyForSameCompactJwt() {
+        VerifiedTokenCache cache = cache(true);
+        VerifiedToken verified = token(Instant.now().plusSeconds(60));
+
+        cache.put("a.b.c", verified);
+
+        assertSame(verified, cache.get("a.b.c"));
+        assertNull(cache.get("a.b.d"));
+    }
+
+    @Test
+    void get_DropsTokenPastItsExpiry() {
+        VerifiedTokenCache cache = cache(true);
+
+        cache.put("a.b.c", token(Instant.now().minusSeconds(1)));
+
+        assertNull(cache.get("a.b.c"));
+    }
+
+    @Test
+    void disabledCache_NeverReturnsTokens() {
+        VerifiedTokenCache cache = cache(false);
+
+        cache.put("a.b.c", token(Instant.now().plusSeconds(60)));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("a.b.c"));
+    }
+
+    @Test
+    void put_EvictsBeyondMaximumSize() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 1, ACCESS_TOKEN_LIFETIME, new SimpleMeterRegistry());
+
+        cache.put("first", token(Instant.now().plusSeconds(60)));
+        cache.put("second", token(Instant.now().plusSeconds(60)));
+
+        assertNull(cache.get("first"));
+        assertNotNull(cache.get("second"));
+    }
+
+    private static VerifiedTokenCache cache(boolean enabled) {
+        return new VerifiedTokenCache(enabled, 100, ACCESS_TOKEN_LIFETIME, new SimpleMeterRegistry());
+    }
+
+    private static VerifiedToken token(Instant expiresAt) {
+        return new VerifiedToken("user@unipay.com", "user-1", "session-1", 0L, AuthoritySet.EMPTY,
+                false, false, false, null, false, 0L, expiresAt);
+    }
+}